@@ -0,0 +1,294 @@
+package edu.ccrm.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.DuplicateEnrollmentException;
+import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.service.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Embedded HTTP/JSON front end over the services (JDK com.sun.net.httpserver, no external dependencies).
+ *
+ *   GET    /students/{id}                     GET  /students/{id}/enrollments
+ *   POST   /students?id=&name=&email=&dob=&regNo=&program=
+ *   GET    /students/{id}/gpa[?semester=]
+ *   GET    /courses/{code}                    GET  /courses?department=&semester=&instructor=
+ *   POST   /enrollments?id=&student=&course=&semester=
+ *   DELETE /enrollments/{id}                  POST /enrollments/{id}/marks?marks=
+ *   GET    /reports/top?n=&program=&semester=&order=top|bottom
+ *   GET    /reports/percentiles?p=10,50,90&program=&semester=
+ *   GET    /reports/grades[?course=|department=|semester=]
+ *
+ * Parameters come from the query string or an application/x-www-form-urlencoded body. Every request
+ * runs on its own virtual thread when the JVM has them (Java 21+, looked up once at startup), otherwise
+ * on a fixed pool of platform threads. Errors are {"error": "..."} with 400/404/409/422.
+ */
+public class ApiServer implements Closeable {
+    private static final int BACKLOG = 4096;
+
+    // The JDK server leaves Nagle on by default, so a small response waits for the client's delayed ACK
+    // (~40 ms per keep-alive request). Read once when the server classes load, so set it before that.
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final ReportService reportService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+        ApiException(int status, String message) { super(message); this.status = status; }
+    }
+
+    public ApiServer(int port, int platformThreads, StudentService ss, CourseService cs, EnrollmentService es, ReportService rs)
+            throws IOException {
+        this.studentService = ss; this.courseService = cs; this.enrollmentService = es; this.reportService = rs;
+        ExecutorService vt = virtualThreadExecutor();
+        this.virtualThreads = vt != null;
+        this.executor = vt != null ? vt : platformExecutor(platformThreads);
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/students", ex -> handle(ex, this::students));
+        server.createContext("/courses", ex -> handle(ex, this::courses));
+        server.createContext("/enrollments", ex -> handle(ex, this::enrollments));
+        server.createContext("/reports", ex -> handle(ex, this::reports));
+    }
+
+    public void start() { server.start(); }
+    public int getPort() { return server.getAddress().getPort(); }
+    public boolean usesVirtualThreads() { return virtualThreads; }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try { executor.awaitTermination(5, TimeUnit.SECONDS); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() only exists from Java 21; the build targets 17
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService platformExecutor(int threads) {
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ccrm-http-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Route { Json handle(String method, String[] path, Map<String, String> params) throws Exception; }
+
+    private void handle(HttpExchange ex, Route route) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            String[] path = Arrays.stream(ex.getRequestURI().getRawPath().split("/"))
+                    .filter(p -> !p.isEmpty()).map(p -> URLDecoder.decode(p, StandardCharsets.UTF_8)).toArray(String[]::new);
+            Json out = route.handle(ex.getRequestMethod(), path, params(ex));
+            body = out.toString();
+        } catch (ApiException e) {
+            status = e.status; body = error(e.getMessage());
+        } catch (DuplicateEnrollmentException e) {
+            status = 409; body = error(e.getMessage());
+        } catch (MaxCreditLimitExceededException e) {
+            status = 422; body = error(e.getMessage());
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            status = 400; body = error(e.getMessage());
+        } catch (Exception e) {
+            status = 500; body = error(e.toString());
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) { os.write(bytes); }
+    }
+
+    /* ---------- routes ---------- */
+
+    private Json students(String method, String[] p, Map<String, String> q) {
+        if (p.length == 1 && method.equals("POST")) {
+            Student s = new Student(required(q, "id"), q.get("name"), q.get("email"),
+                    q.containsKey("dob") ? LocalDate.parse(q.get("dob")) : null, q.get("regNo"), q.get("program"));
+            studentService.addStudent(s);
+            return student(new Json(), s);
+        }
+        if (p.length < 2 || !method.equals("GET")) throw notFound();
+        String id = p[1];
+        if (p.length == 2) return student(new Json(), studentService.findById(id).orElseThrow(() -> missing("student", id)));
+        if (p.length == 3 && p[2].equals("enrollments")) return enrollments(new Json(), enrollmentService.findByStudent(id));
+        if (p.length == 3 && p[2].equals("gpa")) {
+            Semester sem = semester(q.get("semester"));
+            double gpa = sem == null ? enrollmentService.computeGPAForStudent(id) : enrollmentService.computeGPAForStudent(id, sem);
+            return new Json().beginObject().field("studentId", id).field("semester", sem == null ? null : sem.name())
+                    .field("gpa", gpa).endObject();
+        }
+        throw notFound();
+    }
+
+    private Json courses(String method, String[] p, Map<String, String> q) {
+        if (!method.equals("GET")) throw notFound();
+        if (p.length == 2) return course(new Json(), courseService.findByCode(p[1]).orElseThrow(() -> missing("course", p[1])));
+        if (p.length != 1) throw notFound();
+        Json out = new Json(4096).beginArray();
+        for (Course c : courseService.filter(q.get("instructor"), q.get("department"), q.get("semester"))) course(out, c);
+        return out.endArray();
+    }
+
+    private Json enrollments(String method, String[] p, Map<String, String> q) throws Exception {
+        if (p.length == 1 && method.equals("POST")) {
+            Semester sem = semester(required(q, "semester"));
+            Enrollment e = enrollmentService.enroll(required(q, "id"), required(q, "student"), required(q, "course"), sem);
+            return enrollment(new Json(), e);
+        }
+        if (p.length == 2 && method.equals("DELETE")) {
+            enrollmentService.unenroll(p[1]);
+            return new Json().beginObject().field("unenrolled", p[1]).endObject();
+        }
+        if (p.length == 3 && p[2].equals("marks") && (method.equals("POST") || method.equals("PUT"))) {
+            double marks = Double.parseDouble(required(q, "marks"));
+            enrollmentService.recordMarks(p[1], marks);
+            return new Json().beginObject().field("enrollmentId", p[1]).field("marks", marks)
+                    .field("grade", Grade.fromMarks(marks).name()).endObject();
+        }
+        throw notFound();
+    }
+
+    private Json reports(String method, String[] p, Map<String, String> q) {
+        if (!method.equals("GET") || p.length != 2) throw notFound();
+        ReportService.Cohort cohort = new ReportService.Cohort(q.get("program"), semester(q.get("semester")));
+        switch (p[1]) {
+            case "top" -> {
+                int n = Integer.parseInt(q.getOrDefault("n", "10"));
+                if (n <= 0) throw new ApiException(400, "n must be positive: " + n);
+                List<ReportService.StudentGpa> list = "bottom".equals(q.get("order"))
+                        ? reportService.bottomN(cohort, n) : reportService.topN(cohort, n);
+                Json out = new Json(64 * list.size() + 16).beginArray();
+                for (ReportService.StudentGpa s : list) {
+                    out.beginObject().field("studentId", s.studentId()).field("name", s.name()).field("program", s.program())
+                            .field("gpa", s.gpa()).field("gradedCredits", s.gradedCredits()).endObject();
+                }
+                return out.endArray();
+            }
+            case "percentiles" -> {
+                double[] pct = Arrays.stream(q.getOrDefault("p", "10,25,50,75,90").split(","))
+                        .mapToDouble(s -> Double.parseDouble(s.trim())).toArray();
+                double[] cut = reportService.percentiles(cohort, pct);
+                Json out = new Json().beginObject();
+                for (int i = 0; i < pct.length; i++) out.field("p" + (pct[i] == Math.rint(pct[i]) ? Long.toString((long) pct[i]) : Double.toString(pct[i])), cut[i]);
+                return out.endObject();
+            }
+            case "grades" -> {
+                Map<Grade, Long> dist;
+                if (q.containsKey("course")) dist = enrollmentService.gradeDistributionForCourse(q.get("course"));
+                else if (q.containsKey("department")) dist = enrollmentService.gradeDistributionForDepartment(q.get("department"));
+                else if (q.containsKey("semester")) dist = enrollmentService.gradeDistributionForSemester(semester(q.get("semester")));
+                else dist = enrollmentService.gradeDistribution();
+                Json out = new Json().beginObject();
+                for (Grade g : Grade.values()) out.field(g.name(), dist.getOrDefault(g, 0L));
+                return out.endObject();
+            }
+            default -> throw notFound();
+        }
+    }
+
+    /* ---------- serializers ---------- */
+
+    private static Json student(Json out, Student s) {
+        return out.beginObject().field("id", s.getId()).field("name", s.getName()).field("email", s.getEmail())
+                .field("dob", s.getDateOfBirth() == null ? null : s.getDateOfBirth().toString())
+                .field("regNo", s.getRegNo()).field("program", s.getProgram()).field("active", s.isActive())
+                .endObject();
+    }
+
+    private static Json course(Json out, Course c) {
+        return out.beginObject().field("code", c.getCourseCode()).field("title", c.getTitle())
+                .field("credits", c.getCreditHours()).field("department", c.getDepartment())
+                .field("semester", c.getSemester() == null ? null : c.getSemester().name())
+                .field("instructorId", c.getInstructorId()).endObject();
+    }
+
+    private static Json enrollment(Json out, Enrollment e) {
+        return out.beginObject().field("id", e.getEnrollmentId()).field("studentId", e.getStudentId())
+                .field("courseCode", e.getCourseCode()).field("semester", e.getSemester() == null ? null : e.getSemester().name())
+                .field("grade", e.getGrade() == null ? null : e.getGrade().name())
+                .field("enrolledAt", e.getEnrollmentDate().toString()).endObject();
+    }
+
+    private static Json enrollments(Json out, List<Enrollment> list) {
+        out.beginArray();
+        for (Enrollment e : list) enrollment(out, e);
+        return out.endArray();
+    }
+
+    /* ---------- helpers ---------- */
+
+    private static Map<String, String> params(HttpExchange ex) throws IOException {
+        Map<String, String> out = new HashMap<>();
+        parseForm(ex.getRequestURI().getRawQuery(), out);
+        String type = ex.getRequestHeaders().getFirst("Content-Type");
+        if (type != null && type.startsWith("application/x-www-form-urlencoded")) {
+            try (InputStream in = ex.getRequestBody()) {
+                parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), out);
+            }
+        }
+        return out;
+    }
+
+    private static void parseForm(String raw, Map<String, String> out) {
+        if (raw == null || raw.isEmpty()) return;
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String k = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String v = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            out.put(k, v);
+        }
+    }
+
+    private static String required(Map<String, String> q, String name) {
+        String v = q.get(name);
+        if (v == null || v.isBlank()) throw new ApiException(400, "missing parameter: " + name);
+        return v;
+    }
+
+    private static Semester semester(String s) {
+        return s == null || s.isBlank() ? null : Semester.valueOf(s.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private static ApiException notFound() { return new ApiException(404, "no such endpoint"); }
+    private static ApiException missing(String what, String id) { return new ApiException(404, what + " not found: " + id); }
+    private static String error(String message) { return new Json().beginObject().field("error", message).endObject().toString(); }
+}
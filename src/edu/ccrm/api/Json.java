@@ -0,0 +1,85 @@
+package edu.ccrm.api;
+
+import java.util.Locale;
+
+// Minimal streaming JSON writer. Every payload is written field by field by hand-written
+// serializers in ApiServer, so nothing is discovered by reflection at request time.
+final class Json {
+    private final StringBuilder sb;
+    // one flag per open object/array: does the next member need a leading comma?
+    private long needComma;
+    private int depth;
+
+    Json() { this(256); }
+    Json(int capacity) { this.sb = new StringBuilder(capacity); }
+
+    Json beginObject() { value(); sb.append('{'); push(); return this; }
+    Json endObject() { pop(); sb.append('}'); return this; }
+    Json beginArray() { value(); sb.append('['); push(); return this; }
+    Json endArray() { pop(); sb.append(']'); return this; }
+
+    Json name(String name) {
+        value();
+        string(name);
+        sb.append(':');
+        // the value that follows must not get a comma of its own
+        needComma &= ~(1L << depth);
+        return this;
+    }
+
+    Json value(String v) {
+        value();
+        if (v == null) sb.append("null"); else string(v);
+        return this;
+    }
+
+    Json value(long v) { value(); sb.append(v); return this; }
+    Json value(boolean v) { value(); sb.append(v); return this; }
+
+    Json value(double v) {
+        value();
+        if (Double.isNaN(v) || Double.isInfinite(v)) sb.append("null");
+        else sb.append(String.format(Locale.ROOT, "%.4f", v));
+        return this;
+    }
+
+    Json field(String name, String v) { return name(name).value(v); }
+    Json field(String name, long v) { return name(name).value(v); }
+    Json field(String name, double v) { return name(name).value(v); }
+    Json field(String name, boolean v) { return name(name).value(v); }
+
+    @Override public String toString() { return sb.toString(); }
+
+    private void value() {
+        if (depth == 0) return;
+        long bit = 1L << depth;
+        if ((needComma & bit) != 0) sb.append(',');
+        needComma |= bit;
+    }
+
+    private void push() {
+        if (++depth > 63) throw new IllegalStateException("JSON nested too deeply");
+        needComma &= ~(1L << depth);
+    }
+
+    private void pop() { depth--; }
+
+    private void string(String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,119 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.DuplicateEnrollmentException;
+import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.service.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stress test of concurrent enrollment: many threads enroll (and now and then unenroll) the same few students
+// into a small pool of courses at once, so the credit-limit and duplicate checks race as hard as they can.
+// Afterwards every (student, semester) must be within the credit limit, no (student, course, semester) may
+// appear twice, and the service's credit totals must match the enrollments. Exits with status 1 otherwise.
+//
+//   java -cp bin edu.ccrm.bench.EnrollmentStressTest [threads] [students] [opsPerThread]     (default 16 20 50000)
+//
+// Pass -Dccrm.enrollment.storage=COLUMNAR to stress the columnar enrollment engine instead.
+public final class EnrollmentStressTest {
+    private static final int COURSE_POOL = 12;
+
+    private EnrollmentStressTest() {}
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int students = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int opsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+
+        StudentService ss = new StudentService();
+        CourseService cs = new CourseService();
+        EnrollmentService es = new EnrollmentService(ss, cs,
+                EnrollmentService.Storage.valueOf(AppConfig.getInstance().getEnrollmentStorage().toUpperCase()));
+        for (int i = 0; i < students; i++) {
+            ss.addStudent(new Student("S" + i, "Student " + i, "s" + i + "@example.com", LocalDate.of(2000, 1, 1), "REG" + i, "CS"));
+        }
+        // all 3 credits, so six courses reach the limit
+        for (int i = 0; i < COURSE_POOL; i++) cs.addCourse(new Course.Builder().courseCode("C" + i).title("Course " + i).creditHours(3).build());
+        Semester[] semesters = Semester.values();
+
+        AtomicLong enrolled = new AtomicLong(), duplicates = new AtomicLong(), overLimit = new AtomicLong(), unenrolled = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            done.add(pool.submit(() -> {
+                SplittableRandom rnd = new SplittableRandom(id);
+                start.await();
+                String last = null;
+                for (int i = 0; i < opsPerThread; i++) {
+                    String sid = "S" + rnd.nextInt(students);
+                    String code = "C" + rnd.nextInt(COURSE_POOL);
+                    try {
+                        last = es.enroll("T" + id + "-" + i, sid, code, semesters[rnd.nextInt(semesters.length)]).getEnrollmentId();
+                        enrolled.incrementAndGet();
+                    } catch (DuplicateEnrollmentException e) {
+                        duplicates.incrementAndGet();
+                    } catch (MaxCreditLimitExceededException e) {
+                        overLimit.incrementAndGet();
+                    }
+                    // free some room so the limit keeps being contended rather than reached once
+                    if (last != null && rnd.nextInt(4) == 0) {
+                        es.unenroll(last);
+                        last = null;
+                        unenrolled.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : done) f.get();
+        long elapsed = System.nanoTime() - t0;
+        pool.shutdown();
+
+        Map<String, Integer> credits = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        List<String> failures = new ArrayList<>();
+        List<Enrollment> all = es.getAllEnrollments();
+        for (Enrollment e : all) {
+            String key = e.getStudentId() + "/" + e.getSemester();
+            credits.merge(key, cs.findByCode(e.getCourseCode()).orElseThrow().getCreditHours(), Integer::sum);
+            if (!seen.add(key + "/" + e.getCourseCode())) failures.add("duplicate enrollment: " + key + "/" + e.getCourseCode());
+        }
+        for (Map.Entry<String, Integer> c : credits.entrySet()) {
+            if (c.getValue() > 18) failures.add("over the credit limit: " + c.getKey() + " has " + c.getValue());
+            String[] k = c.getKey().split("/");
+            int tracked = es.creditsFor(k[0], Semester.valueOf(k[1]));
+            if (tracked != c.getValue()) failures.add("credit total out of step: " + c.getKey() + " tracked " + tracked + ", actual " + c.getValue());
+        }
+
+        System.out.printf("threads=%d students=%d ops=%d  %.0f ops/s%n", threads, students, (long) threads * opsPerThread,
+                threads * (double) opsPerThread / (elapsed / 1e9));
+        System.out.printf("enrolled=%d duplicate=%d over limit=%d unenrolled=%d  remaining=%d%n",
+                enrolled.get(), duplicates.get(), overLimit.get(), unenrolled.get(), all.size());
+        if (!failures.isEmpty()) {
+            failures.stream().limit(20).forEach(f -> System.out.println("FAIL " + f));
+            System.out.println(failures.size() + " invariant violations");
+            System.exit(1);
+        }
+        System.out.println("OK: no student over 18 credits per semester, no duplicate (student, course, semester)");
+    }
+}
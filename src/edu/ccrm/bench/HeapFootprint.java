@@ -0,0 +1,85 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+// Retained heap per enrollment: the current Enrollment against the previous layout (own id strings and
+// a LocalDateTime per row), then a whole EnrollmentService, indexes included, per storage engine.
+// Strings are built fresh per row, as a CSV or journal reader would.
+//
+//   java -cp bin edu.ccrm.bench.HeapFootprint [enrollments]     (default 1000000)
+//
+// Sizes come from used heap after repeated System.gc(), so run with a fixed heap (e.g. -Xms2g -Xmx2g)
+// for stable numbers.
+public final class HeapFootprint {
+    // the pre-compaction Enrollment, kept here only as the baseline
+    private static final class LegacyEnrollment {
+        final String enrollmentId, studentId, courseCode;
+        final Semester semester;
+        volatile Object grade;
+        final LocalDateTime enrollmentDate;
+        LegacyEnrollment(String enrollmentId, String studentId, String courseCode, Semester semester, LocalDateTime date) {
+            this.enrollmentId = enrollmentId; this.studentId = studentId; this.courseCode = courseCode;
+            this.semester = semester; this.enrollmentDate = date;
+        }
+    }
+
+    private HeapFootprint() {}
+
+    public static void main(String[] args) {
+        int n = args.length == 0 ? 1_000_000 : Integer.parseInt(args[0]);
+        SyntheticData data = new SyntheticData(42, n);
+        int students = data.getStudents(), courses = data.getCourses();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Semester[] sems = Semester.values();
+
+        double legacy = bytesPerObject(n, i -> new LegacyEnrollment("E" + i, SyntheticData.studentId(i / SyntheticData.ENROLLMENTS_PER_STUDENT),
+                SyntheticData.courseCode(i % courses), sems[i % sems.length], base.plusSeconds(i)));
+        double compact = bytesPerObject(n, i -> new Enrollment("E" + i, SyntheticData.studentId(i / SyntheticData.ENROLLMENTS_PER_STUDENT),
+                SyntheticData.courseCode(i % courses), sems[i % sems.length], base.plusSeconds(i)));
+        System.out.printf("%-28s %12s %16s%n", "layout", "enrollments", "bytes/enrollment");
+        System.out.printf("%-28s %12d %16.1f%n", "before (strings + LDT)", n, legacy);
+        System.out.printf("%-28s %12d %16.1f%n", "after (pooled + epoch ms)", n, compact);
+        System.out.printf("saved %.1f bytes per enrollment (%.0f%%), %d students, %d courses%n",
+                legacy - compact, 100 * (legacy - compact) / legacy, students, courses);
+
+        System.out.printf("%n%-28s %12s %16s%n", "EnrollmentService storage", "enrollments", "bytes/enrollment");
+        for (EnrollmentService.Storage storage : EnrollmentService.Storage.values()) {
+            StudentService ss = new StudentService();
+            CourseService cs = new CourseService();
+            data.populate(ss, cs);
+            EnrollmentService es = new EnrollmentService(ss, cs, storage);
+            long before = usedHeap();
+            try { data.enrollAll(es); } catch (Exception e) { throw new IllegalStateException(e); }
+            long after = usedHeap();
+            System.out.printf("%-28s %12d %16.1f%n", storage, n, (double) (after - before) / n);
+            if (es.getAllEnrollments().isEmpty()) throw new AssertionError();
+        }
+    }
+
+    private static double bytesPerObject(int n, IntFunction<Object> factory) {
+        Object[] keep = new Object[n];
+        long before = usedHeap();
+        for (int i = 0; i < n; i++) keep[i] = factory.apply(i);
+        long after = usedHeap();
+        // the array itself is allocated before the first measurement, so only the rows are counted
+        double perObject = (double) (after - before) / n;
+        if (keep[n - 1] == null) throw new AssertionError();
+        return perObject;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try { Thread.sleep(50); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,106 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.api.ApiServer;
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.service.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop load test of the HTTP API on localhost: every simulated client sends a request, waits for
+// the answer and sends the next one, until the time is up. Mix: 70% GPA lookups, 20% student reads,
+// 10% marks updates, all against SyntheticData.
+//
+//   java -cp bin edu.ccrm.bench.HttpLoadTest [clients] [seconds] [enrollments]     (default 2000 10 100000)
+public final class HttpLoadTest {
+    private HttpLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        System.setProperty("jdk.httpclient.connectionPoolSize", Integer.toString(clients));
+
+        SyntheticData data = new SyntheticData(42, size);
+        StudentService ss = new StudentService();
+        CourseService cs = new CourseService();
+        EnrollmentService es = new EnrollmentService(ss, cs);
+        data.populate(ss, cs);
+        data.enrollAll(es);
+
+        try (ApiServer server = new ApiServer(0, AppConfig.getInstance().getHttpThreads(), ss, cs, es, new ReportService(ss, es))) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            ExecutorService clientPool = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientPool)
+                    .connectTimeout(Duration.ofSeconds(10)).build();
+
+            // latencies in microseconds, one slot per completed request
+            long[][] perClient = new long[clients][];
+            AtomicLong errors = new AtomicLong();
+            CountDownLatch done = new CountDownLatch(clients);
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                perClient[c] = new long[1024];
+                new Object() {
+                    final SplittableRandom rnd = new SplittableRandom(client);
+                    int n;
+
+                    void next() {
+                        if (System.nanoTime() >= deadline) {
+                            perClient[client] = Arrays.copyOf(perClient[client], n);
+                            done.countDown();
+                            return;
+                        }
+                        long t = System.nanoTime();
+                        http.sendAsync(request(base, data, rnd), HttpResponse.BodyHandlers.discarding())
+                                .whenComplete((resp, err) -> {
+                                    if (err != null || resp.statusCode() >= 500) errors.incrementAndGet();
+                                    if (n == perClient[client].length) perClient[client] = Arrays.copyOf(perClient[client], n * 2);
+                                    perClient[client][n++] = (System.nanoTime() - t) / 1000;
+                                    next();
+                                });
+                    }
+                }.next();
+            }
+            done.await();
+            double secs = (System.nanoTime() - start) / 1e9;
+            long[] all = Arrays.stream(perClient).flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("server threads   %s%n", server.usesVirtualThreads() ? "virtual" : AppConfig.getInstance().getHttpThreads() + " platform");
+            System.out.printf("clients          %d%n", clients);
+            System.out.printf("requests         %d (%d errors)%n", all.length, errors.get());
+            System.out.printf("throughput       %.0f req/s%n", all.length / secs);
+            if (all.length > 0) {
+                System.out.printf("latency p50      %.2f ms%n", pct(all, 50) / 1000.0);
+                System.out.printf("latency p99      %.2f ms%n", pct(all, 99) / 1000.0);
+                System.out.printf("latency max      %.2f ms%n", all[all.length - 1] / 1000.0);
+            }
+            clientPool.shutdownNow();
+        }
+    }
+
+    private static HttpRequest request(String base, SyntheticData data, SplittableRandom rnd) {
+        int kind = rnd.nextInt(10);
+        String student = SyntheticData.studentId(rnd.nextInt(data.getStudents()));
+        if (kind < 7) return HttpRequest.newBuilder(URI.create(base + "/students/" + student + "/gpa")).GET().build();
+        if (kind < 9) return HttpRequest.newBuilder(URI.create(base + "/students/" + student)).GET().build();
+        String enrollment = "E" + rnd.nextInt(data.getEnrollments());
+        return HttpRequest.newBuilder(URI.create(base + "/enrollments/" + enrollment + "/marks?marks=" + (40 + rnd.nextInt(61))))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private static long pct(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.max(0, Math.ceil(p / 100 * sorted.length) - 1))];
+    }
+}
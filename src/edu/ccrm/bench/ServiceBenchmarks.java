@@ -0,0 +1,226 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.events.EventRing;
+import edu.ccrm.io.CSVImporter;
+import edu.ccrm.service.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+// Micro-benchmarks for the service hot paths, run against SyntheticData at several dataset sizes.
+//
+//   javac -d bin $(find src -name "*.java")
+//   java -cp bin edu.ccrm.bench.ServiceBenchmarks [enrollmentCounts...]     (default 1000 10000 100000)
+//
+// Pass -Dccrm.enrollment.storage=COLUMNAR to measure the columnar enrollment engine instead.
+// Each benchmark runs warm-up iterations first, then reports the median ns/op over the measured ones.
+// A final sweep grows one store through the same sizes and measures enroll at each, to show it stays flat.
+// Files are written to a temp folder (ccrm.dataFolder / ccrm.backupFolder) that is removed afterwards.
+public final class ServiceBenchmarks {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    // results are published here so the JIT cannot drop the measured work
+    private static volatile Object sink;
+
+    @FunctionalInterface
+    interface Iteration { long timedNanos(int iteration) throws Exception; }
+
+    private ServiceBenchmarks() {}
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0 ? new int[]{1_000, 10_000, 100_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        Path work = Files.createTempDirectory("ccrm-bench");
+        // must happen before anything touches AppConfig
+        System.setProperty("ccrm.dataFolder", work.resolve("data").toString());
+        System.setProperty("ccrm.backupFolder", work.resolve("backups").toString());
+        try {
+            System.out.printf("%-36s %10s %14s %14s%n", "benchmark", "size", "ns/op", "ops/s");
+            for (int size : sizes) run(size, work);
+            growthSweep(sizes);
+        } finally {
+            deleteRecursively(work);
+        }
+    }
+
+    private static void run(int size, Path work) throws Exception {
+        SyntheticData data = new SyntheticData(42, size);
+        StudentService ss = new StudentService();
+        CourseService cs = new CourseService();
+        EnrollmentService es = new EnrollmentService(ss, cs,
+                EnrollmentService.Storage.valueOf(AppConfig.getInstance().getEnrollmentStorage().toUpperCase()));
+        data.populate(ss, cs);
+        data.enrollAll(es);
+        SplittableRandom rnd = new SplittableRandom(7);
+
+        int batch = 1_000;
+        measure("EnrollmentService.enroll", size, batch, enrollBatch(es, data, "B", batch));
+
+        // same loop with the event ring attached and a subscriber draining it, to show the cost of publishing
+        EventRing events = new EventRing(8192, EventRing.Overflow.BLOCK);
+        es.setEvents(events);
+        EventRing.Subscription drain = events.subscribe("bench", (e, seq, end) -> sink = e);
+        try {
+            measure("EnrollmentService.enroll (with events)", size, batch, enrollBatch(es, data, "V", batch));
+        } finally {
+            drain.close();
+        }
+        es.setEvents(null);
+
+        int lookups = 10_000;
+        measure("EnrollmentService.computeGPAForStudent", size, lookups, it -> {
+            long t = System.nanoTime();
+            double acc = 0;
+            for (int i = 0; i < lookups; i++) acc += es.computeGPAForStudent(SyntheticData.studentId(rnd.nextInt(data.getStudents())));
+            sink = acc;
+            return System.nanoTime() - t;
+        });
+
+        measure("EnrollmentService.gradeDistribution", size, 1, it -> {
+            long t = System.nanoTime();
+            sink = es.gradeDistribution();
+            return System.nanoTime() - t;
+        });
+
+        ReportService reports = new ReportService(ss, es);
+        ReportService.Cohort everyone = new ReportService.Cohort(null, null);
+        measure("ReportService.topN(100)", size, 1, it -> {
+            long t = System.nanoTime();
+            sink = reports.topN(everyone, 100);
+            return System.nanoTime() - t;
+        });
+        measure("ReportService.percentiles", size, 1, it -> {
+            long t = System.nanoTime();
+            sink = reports.percentiles(everyone, 10, 50, 90);
+            return System.nanoTime() - t;
+        });
+
+        int filters = 100;
+        measure("CourseService.filterByInstructor", size, filters, it -> {
+            long t = System.nanoTime();
+            for (int i = 0; i < filters; i++) sink = cs.filterByInstructor(SyntheticData.instructorId(i));
+            return System.nanoTime() - t;
+        });
+        measure("CourseService.filterByDepartment", size, filters, it -> {
+            long t = System.nanoTime();
+            for (int i = 0; i < filters; i++) sink = cs.filterByDepartment(SyntheticData.DEPARTMENTS[i % SyntheticData.DEPARTMENTS.length].toLowerCase());
+            return System.nanoTime() - t;
+        });
+        measure("CourseService.filterBySemester", size, filters, it -> {
+            long t = System.nanoTime();
+            for (int i = 0; i < filters; i++) sink = cs.filterBySemester(Semester.values()[i % 3].name());
+            return System.nanoTime() - t;
+        });
+        measure("CourseService.filter (dept+semester)", size, filters, it -> {
+            long t = System.nanoTime();
+            for (int i = 0; i < filters; i++) sink = cs.filter(null, SyntheticData.DEPARTMENTS[i % SyntheticData.DEPARTMENTS.length], Semester.values()[i % 3].name());
+            return System.nanoTime() - t;
+        });
+
+        CSVService csv = new CSVService();
+        Path studentsCsv = work.resolve("students_" + size + ".csv");
+        data.writeStudentsCsv(studentsCsv);
+        measure("CSVService.importStudents (per row)", size, data.getStudents(), it -> {
+            StudentService fresh = new StudentService();
+            long t = System.nanoTime();
+            sink = csv.importStudents(studentsCsv, fresh);
+            return System.nanoTime() - t;
+        });
+        // nightly re-import of an unchanged feed: every row is a known id with identical fields
+        StudentService loaded = new StudentService();
+        csv.importStudents(studentsCsv, loaded);
+        measure("CSVService.importStudents merge, unchanged (per row)", size, data.getStudents(), it -> {
+            long t = System.nanoTime();
+            sink = csv.importStudents(studentsCsv, loaded, CSVImporter.Mode.MERGE);
+            return System.nanoTime() - t;
+        });
+        measure("CSVService.exportStudents (per row)", size, data.getStudents(), it -> {
+            long t = System.nanoTime();
+            sink = csv.exportStudents(ss);
+            return System.nanoTime() - t;
+        });
+
+        // paged catalog with a cache of a tenth of the students, so most random lookups go to the file
+        try (StudentService paged = StudentService.paged(work.resolve("students_" + size + ".pages"), Math.max(1, data.getStudents() / 10))) {
+            ss.stream().forEach(paged::addStudent);
+            measure("StudentService.findById (memory)", size, lookups, it -> {
+                long t = System.nanoTime();
+                for (int i = 0; i < lookups; i++) sink = ss.findById(SyntheticData.studentId(rnd.nextInt(data.getStudents())));
+                return System.nanoTime() - t;
+            });
+            measure("StudentService.findById (paged)", size, lookups, it -> {
+                long t = System.nanoTime();
+                for (int i = 0; i < lookups; i++) sink = paged.findById(SyntheticData.studentId(rnd.nextInt(data.getStudents())));
+                return System.nanoTime() - t;
+            });
+            measure("StudentService.stream (paged, per row)", size, data.getStudents(), it -> {
+                long t = System.nanoTime();
+                sink = paged.stream().filter(Student::isActive).count();
+                return System.nanoTime() - t;
+            });
+        }
+
+        csv.exportCourses(cs);
+        BackupService backups = new BackupService();
+        measure("BackupService.createBackup", size, 1, it -> {
+            long t = System.nanoTime();
+            sink = backups.createBackup();
+            return System.nanoTime() - t;
+        });
+    }
+
+    // one store filled in steps up to each size in turn; enroll only looks at the student's own semester, so
+    // its cost should not grow with the store the way a scan of every enrollment would
+    private static void growthSweep(int[] sizes) throws Exception {
+        int[] steps = Arrays.stream(sizes).sorted().distinct().toArray();
+        SyntheticData data = new SyntheticData(42, steps[steps.length - 1]);
+        StudentService ss = new StudentService();
+        CourseService cs = new CourseService();
+        EnrollmentService es = new EnrollmentService(ss, cs,
+                EnrollmentService.Storage.valueOf(AppConfig.getInstance().getEnrollmentStorage().toUpperCase()));
+        data.populate(ss, cs);
+        int filled = 0, batch = 1_000;
+        for (int size : steps) {
+            data.enroll(es, filled, size);
+            filled = size;
+            measure("EnrollmentService.enroll (growing)", es.getAllEnrollments().size(), batch, enrollBatch(es, data, "G" + size + "_", batch));
+        }
+    }
+
+    // enrolls a batch of new students five courses each, then unenrolls them so the store keeps its size
+    private static Iteration enrollBatch(EnrollmentService es, SyntheticData data, String tag, int batch) {
+        return it -> {
+            String prefix = tag + it + "_";
+            long t = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                sink = es.enroll(prefix + i, prefix + (i / 5), SyntheticData.courseCode(i % data.getCourses()), Semester.FALL);
+            }
+            long elapsed = System.nanoTime() - t;
+            for (int i = 0; i < batch; i++) es.unenroll(prefix + i);
+            return elapsed;
+        };
+    }
+
+    private static void measure(String name, int size, int opsPerIteration, Iteration iteration) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) iteration.timedNanos(-1 - i);
+        double[] nsPerOp = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) nsPerOp[i] = (double) iteration.timedNanos(i) / opsPerIteration;
+        Arrays.sort(nsPerOp);
+        double median = nsPerOp[MEASURED_ITERATIONS / 2];
+        System.out.printf("%-36s %10d %14.1f %14.0f%n", name, size, median, 1e9 / median);
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (Files.notExists(root)) return;
+        try (var s = Files.walk(root)) {
+            for (Path p : (Iterable<Path>) s.sorted(Comparator.reverseOrder())::iterator) Files.deleteIfExists(p);
+        }
+    }
+}
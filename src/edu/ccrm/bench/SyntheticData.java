@@ -0,0 +1,95 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+// Deterministic campus generator: same seed and size, same data. Sized by enrollment count,
+// with five enrollments per student and one course per hundred enrollments (at least fifty).
+public final class SyntheticData {
+    public static final String[] PROGRAMS = {"Computer Science", "Electronics", "Mechanical", "Civil", "Mathematics", "Physics"};
+    public static final String[] DEPARTMENTS = {"CS", "EE", "ME", "CE", "MA", "PH"};
+    public static final int ENROLLMENTS_PER_STUDENT = 5;
+
+    private final long seed;
+    private final int enrollments;
+    private final int students;
+    private final int courses;
+
+    public SyntheticData(long seed, int enrollments) {
+        this.seed = seed;
+        this.enrollments = enrollments;
+        this.students = Math.max(1, enrollments / ENROLLMENTS_PER_STUDENT);
+        this.courses = Math.max(50, enrollments / 100);
+    }
+
+    public int getEnrollments() { return enrollments; }
+    public int getStudents() { return students; }
+    public int getCourses() { return courses; }
+
+    public static String studentId(int i) { return "S" + i; }
+    public static String courseCode(int i) { return "C" + i; }
+    public static String instructorId(int i) { return "INST" + (i % 200); }
+
+    public Student student(int i) {
+        return new Student(studentId(i), "Student " + i, "s" + i + "@example.com",
+                LocalDate.of(1998 + i % 6, 1 + i % 12, 1 + i % 28), "REG" + i, PROGRAMS[i % PROGRAMS.length]);
+    }
+
+    public Course course(int i) {
+        return new Course.Builder()
+                .courseCode(courseCode(i)).title("Course " + i).creditHours(3)
+                .department(DEPARTMENTS[i % DEPARTMENTS.length])
+                .semester(Semester.values()[i % Semester.values().length])
+                .instructorId(instructorId(i))
+                .build();
+    }
+
+    public void populate(StudentService ss, CourseService cs) {
+        for (int i = 0; i < students; i++) ss.addStudent(student(i));
+        for (int i = 0; i < courses; i++) cs.addCourse(course(i));
+    }
+
+    // every student takes five distinct courses in one semester (15 credits, under the limit); about 80% get marks
+    public void enrollAll(EnrollmentService es) throws Exception {
+        enroll(es, 0, enrollments);
+    }
+
+    // rows [from, to) of the full set, so one store can be grown in steps; each row is generated from its own
+    // index, so the rows do not depend on how the range is split
+    public void enroll(EnrollmentService es, int from, int to) throws Exception {
+        int end = Math.min(to, Math.min(enrollments, students * ENROLLMENTS_PER_STUDENT));
+        for (int n = from; n < end; n++) {
+            int s = n / ENROLLMENTS_PER_STUDENT;
+            Semester sem = Semester.values()[s % Semester.values().length];
+            int base = new SplittableRandom(seed + s).nextInt(courses);
+            String eid = "E" + n;
+            es.enroll(eid, studentId(s), courseCode((base + n % ENROLLMENTS_PER_STUDENT) % courses), sem);
+            SplittableRandom rnd = new SplittableRandom(~seed - n);
+            if (rnd.nextInt(5) != 0) es.recordMarks(eid, 40 + rnd.nextInt(61));
+        }
+    }
+
+    public void writeStudentsCsv(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("id,name,email,dob,regNo,program");
+            w.newLine();
+            for (int i = 0; i < students; i++) {
+                Student s = student(i);
+                w.write(String.join(",", s.getId(), s.getName(), s.getEmail(), s.getDateOfBirth().toString(), s.getRegNo(), s.getProgram()));
+                w.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package edu.ccrm.cli;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.CSVImporter;
+import edu.ccrm.service.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+/*
+ * Non-interactive driver: one command per line, from a file or stdin, run straight against the services.
+ *
+ *   student <id> <name> <email> <yyyy-mm-dd> <regNo> <program>
+ *   deactivate <studentId>
+ *   course <code> <title> <credits> <department> <SEMESTER|-> [instructorId]
+ *   enroll <enrollmentId> <studentId> <courseCode> <SEMESTER>
+ *   unenroll <enrollmentId>
+ *   marks <enrollmentId> <marks>
+ *   gpa <studentId> [SEMESTER]
+ *   import students|courses <csv path> [merge]
+ *   export                      CSV exports and snapshot, as IO menu option 3
+ *   backup
+ *   restore <backup folder> <destination folder>
+ *   prune [keep]
+ *
+ * Arguments are separated by blanks; double quotes group an argument that contains blanks ("Jane Doe").
+ * Blank lines and lines starting with # are skipped. A failing command is reported with its line number
+ * and the run carries on. Output goes through one buffered writer; per-command counts, errors and
+ * latency percentiles are printed at the end.
+ */
+public class BatchRunner {
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+    private final CSVService csvService;
+    private final CatalogFlusher flusher;
+    private final BackupService backupService;
+    private final Map<String, Stats> stats = new TreeMap<>();
+
+    private static final class Stats {
+        long count, errors, totalNanos;
+        long[] samples = new long[256];
+
+        void record(long nanos, boolean failed) {
+            if (count == samples.length) samples = Arrays.copyOf(samples, samples.length * 2);
+            samples[(int) count++] = nanos;
+            totalNanos += nanos;
+            if (failed) errors++;
+        }
+
+        long percentile(long[] sorted, double p) {
+            return sorted[(int) Math.min(count - 1, Math.max(0, Math.ceil(p / 100 * count) - 1))];
+        }
+    }
+
+    public BatchRunner(StudentService ss, CourseService cs, EnrollmentService es, CSVService csv, CatalogFlusher flusher,
+                       BackupService backups) {
+        this.studentService = ss; this.courseService = cs; this.enrollmentService = es;
+        this.csvService = csv; this.flusher = flusher; this.backupService = backups;
+    }
+
+    // returns the number of failed commands
+    public long run(BufferedReader in, PrintWriter out) throws IOException {
+        long start = System.nanoTime();
+        long lineNo = 0, failed = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            List<String> args = tokenize(line);
+            if (args.isEmpty() || args.get(0).startsWith("#")) continue;
+            String cmd = args.get(0).toLowerCase(Locale.ROOT);
+            long t = System.nanoTime();
+            boolean error = false;
+            try {
+                String result = execute(cmd, args);
+                if (result != null) out.println(result);
+            } catch (Exception e) {
+                error = true;
+                failed++;
+                out.println("line " + lineNo + ": " + cmd + " failed: " + e.getMessage());
+            }
+            stats.computeIfAbsent(cmd, k -> new Stats()).record(System.nanoTime() - t, error);
+        }
+        printSummary(out, System.nanoTime() - start);
+        out.flush();
+        return failed;
+    }
+
+    private String execute(String cmd, List<String> a) throws Exception {
+        switch (cmd) {
+            case "student" -> {
+                need(a, 7, "student <id> <name> <email> <dob> <regNo> <program>");
+                studentService.addStudent(new Student(a.get(1), a.get(2), a.get(3), LocalDate.parse(a.get(4)), a.get(5), a.get(6)));
+                return null;
+            }
+            case "deactivate" -> {
+                need(a, 2, "deactivate <studentId>");
+                studentService.deactivateStudent(a.get(1));
+                return null;
+            }
+            case "course" -> {
+                need(a, 6, "course <code> <title> <credits> <department> <SEMESTER|-> [instructorId]");
+                courseService.addCourse(new Course.Builder()
+                        .courseCode(a.get(1)).title(a.get(2)).creditHours(Integer.parseInt(a.get(3))).department(a.get(4))
+                        .semester(a.get(5).equals("-") ? null : semester(a.get(5)))
+                        .instructorId(a.size() > 6 ? a.get(6) : null)
+                        .build());
+                return null;
+            }
+            case "enroll" -> {
+                need(a, 5, "enroll <enrollmentId> <studentId> <courseCode> <SEMESTER>");
+                enrollmentService.enroll(a.get(1), a.get(2), a.get(3), semester(a.get(4)));
+                return null;
+            }
+            case "unenroll" -> {
+                need(a, 2, "unenroll <enrollmentId>");
+                enrollmentService.unenroll(a.get(1));
+                return null;
+            }
+            case "marks" -> {
+                need(a, 3, "marks <enrollmentId> <marks>");
+                enrollmentService.recordMarks(a.get(1), Double.parseDouble(a.get(2)));
+                return null;
+            }
+            case "gpa" -> {
+                need(a, 2, "gpa <studentId> [SEMESTER]");
+                double gpa = a.size() > 2 ? enrollmentService.computeGPAForStudent(a.get(1), semester(a.get(2)))
+                        : enrollmentService.computeGPAForStudent(a.get(1));
+                return "gpa " + a.get(1) + " " + String.format(Locale.ROOT, "%.3f", gpa);
+            }
+            case "import" -> {
+                need(a, 3, "import students|courses <csv path> [merge]");
+                Path file = Path.of(a.get(2));
+                CSVImporter.Mode mode = a.size() > 3 && a.get(3).equalsIgnoreCase("merge") ? CSVImporter.Mode.MERGE : CSVImporter.Mode.INSERT;
+                return switch (a.get(1).toLowerCase(Locale.ROOT)) {
+                    case "students" -> csvService.importStudents(file, studentService, mode).toString();
+                    case "courses" -> csvService.importCourses(file, courseService, mode).toString();
+                    default -> throw new IllegalArgumentException("import what? students or courses");
+                };
+            }
+            case "export" -> {
+                List<Path> files = flusher.flushAll();
+                return "exported " + files.get(0) + " " + files.get(1);
+            }
+            case "backup" -> {
+                return "backup " + backupService.createBackup();
+            }
+            case "restore" -> {
+                need(a, 3, "restore <backup folder> <destination folder>");
+                return backupService.restore(Path.of(a.get(1)), Path.of(a.get(2))).toString();
+            }
+            case "prune" -> {
+                return backupService.prune(a.size() > 1 ? Integer.parseInt(a.get(1)) : AppConfig.getInstance().getBackupKeep()).toString();
+            }
+            default -> throw new IllegalArgumentException("unknown command");
+        }
+    }
+
+    private void printSummary(PrintWriter out, long wallNanos) {
+        long total = 0, errors = 0;
+        for (Stats s : stats.values()) { total += s.count; errors += s.errors; }
+        out.println();
+        out.printf("%-12s %10s %8s %12s %12s %12s %12s%n", "command", "count", "errors", "mean us", "p50 us", "p99 us", "max us");
+        for (Map.Entry<String, Stats> e : stats.entrySet()) {
+            Stats s = e.getValue();
+            long[] sorted = Arrays.copyOf(s.samples, (int) s.count);
+            Arrays.sort(sorted);
+            out.printf(Locale.ROOT, "%-12s %10d %8d %12.1f %12.1f %12.1f %12.1f%n", e.getKey(), s.count, s.errors,
+                    s.totalNanos / 1e3 / s.count, s.percentile(sorted, 50) / 1e3, s.percentile(sorted, 99) / 1e3,
+                    sorted[sorted.length - 1] / 1e3);
+        }
+        double secs = wallNanos / 1e9;
+        out.printf(Locale.ROOT, "%d commands, %d failed, in %.3f s (%.0f commands/s)%n", total, errors, secs, secs == 0 ? 0 : total / secs);
+    }
+
+    private static void need(List<String> a, int n, String usage) {
+        if (a.size() < n) throw new IllegalArgumentException("usage: " + usage);
+    }
+
+    private static Semester semester(String s) { return Semester.valueOf(s.toUpperCase(Locale.ROOT)); }
+
+    static List<String> tokenize(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false, any = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') { quoted = !quoted; any = true; }
+            else if (!quoted && Character.isWhitespace(c)) {
+                if (any) { out.add(cur.toString()); cur.setLength(0); any = false; }
+            } else { cur.append(c); any = true; }
+        }
+        if (any) out.add(cur.toString());
+        return out;
+    }
+}
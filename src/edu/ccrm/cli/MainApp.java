@@ -1,14 +1,34 @@
 package edu.ccrm.cli;
 
+import edu.ccrm.api.ApiServer;
 import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
+import edu.ccrm.events.EventRing;
+import edu.ccrm.exceptions.BackupVerificationException;
 import edu.ccrm.exceptions.DuplicateEnrollmentException;
 import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.io.CSVImporter;
+import edu.ccrm.io.CatalogChangeLog;
+import edu.ccrm.io.EventAuditLog;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.Operation;
 import edu.ccrm.service.*;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
@@ -17,41 +37,145 @@ public class MainApp {
     private static final AppConfig cfg = AppConfig.getInstance();
 
     // Services
-    private static final StudentService studentService = new StudentService();
-    private static final CourseService courseService = new CourseService();
-    private static final EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService);
+    private static final StudentService studentService;
+    private static final CourseService courseService;
+    static {
+        // the paged catalog persists across runs, so it is opened before anything is loaded into it
+        try {
+            if (cfg.getCatalogStorage().equalsIgnoreCase("PAGED")) {
+                studentService = StudentService.paged(cfg.getCatalogFolder().resolve("students.pages"), cfg.getCatalogCacheEntries());
+                courseService = CourseService.paged(cfg.getCatalogFolder().resolve("courses.pages"), cfg.getCatalogCacheEntries());
+            } else {
+                studentService = new StudentService();
+                courseService = new CourseService();
+            }
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException("Cannot open catalog in " + cfg.getCatalogFolder(), e);
+        }
+    }
+    private static final EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService,
+            EnrollmentService.Storage.valueOf(cfg.getEnrollmentStorage().toUpperCase()));
     private static final CSVService csvService = new CSVService();
     private static final BackupService backupService = new BackupService();
+    private static final ReportService reportService = new ReportService(studentService, enrollmentService);
+    private static EnrollmentJournal journal;
+    private static ApiServer api;
+    private static final CatalogFlusher flusher = new CatalogFlusher(studentService, courseService, csvService,
+            cfg.getSnapshotFile(), new CatalogChangeLog(cfg.getChangeLogFile()), cfg.getFlushIntervalSeconds() * 1000);
+
+    private static final EventRing events = new EventRing(cfg.getEventCapacity(),
+            EventRing.Overflow.valueOf(cfg.getEventOverflow().toUpperCase()));
+    private static EventRing.Subscription audit;
+
+    private enum CatalogSource { PAGED, SNAPSHOT, CSV }
 
     public static void main(String[] args) {
         System.out.println("Welcome to Campus Course & Records Manager (CCRM)");
         System.out.println("Note: Assertions enabled? Run with -ea to activate assertion checks.");
 
-        // ensure data folder and sample CSVs exist; load data
         try {
+            Metrics.registerMBeans();
+        } catch (IllegalStateException e) {
+            System.out.println("Metrics are not available over JMX: " + e.getMessage());
+        }
+
+        // ensure data folder and sample CSVs exist; load data. Each step is timed as startup.<step>.
+        Operation startup = Metrics.operation("startup");
+        long started = startup.start();
+        boolean ok = false;
+        try {
+            long t = System.nanoTime();
             csvService.createSampleDataIfMissing();
-            csvService.importStudents(cfg.getDataFolder().resolve("students.csv"), studentService);
-            csvService.importCourses(cfg.getDataFolder().resolve("courses.csv"), courseService);
+            t = phase("startup.sampleData", t);
+            CatalogSource source = loadCatalog();
+            // the change log holds everything saved since the last good snapshot, so it is replayed onto a
+            // catalog parsed from CSV as well: dropping it would lose those changes with the next snapshot
+            if (source != CatalogSource.PAGED) {
+                ImportReport changes = flusher.recover();
+                if (changes.getImported() > 0 || changes.getRejected() > 0) printImportReport(changes);
+            }
+            // a catalog parsed from CSV gets its snapshot written in the background right away
+            flusher.start(source == CatalogSource.CSV);
+            t = phase("startup.catalog", t);
+            // enrollments and grades live in the journal; courses must be loaded first so credits resolve
+            journal = new EnrollmentJournal(cfg.getJournalFolder(),
+                    EnrollmentJournal.Durability.valueOf(cfg.getJournalDurability().toUpperCase()),
+                    cfg.getJournalBatchMillis(), cfg.getJournalSnapshotEveryOps());
+            long replayed = journal.recover(enrollmentService);
+            if (replayed > 0) System.out.println("Restored enrollments from journal (" + replayed + " records).");
+            phase("startup.journal", t);
+            // loading and replay are not events; only changes made from here on are published
+            studentService.setEvents(events);
+            courseService.setEvents(events);
+            enrollmentService.setEvents(events);
+            if (cfg.getEventAuditFile() != null) {
+                audit = events.subscribe("audit", new EventAuditLog(cfg.getEventAuditFile()));
+                System.out.println("Auditing changes to " + cfg.getEventAuditFile());
+            }
             // ensure export folder exists (so backup can copy)
             if (java.nio.file.Files.notExists(cfg.getExportFolder())) java.nio.file.Files.createDirectories(cfg.getExportFolder());
+            ok = true;
         } catch (IOException e) {
             System.out.println("Initialization error: " + e.getMessage());
+        } finally {
+            startup.stop(started, ok);
         }
 
         // Anonymous inner class: shutdown hook to export on exit
         Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
             @Override
             public void run() {
+                // stop taking requests before the final flush
+                if (api != null) api.close();
+                try {
+                    // only the changes since the last background flush are written here
+                    if (flusher.close(cfg.getFlushShutdownTimeoutMillis())) System.out.println("\n[ShutdownHook] Saved student and course changes.");
+                    else System.out.println("\n[ShutdownHook] Timed out saving student and course changes; the last "
+                            + cfg.getFlushIntervalSeconds() + "s of them may be lost.");
+                } catch (Exception e) {
+                    System.out.println("\n[ShutdownHook] Failed to save changes on exit: " + e.getMessage());
+                }
+                // the audit subscriber writes out what is still in the ring before it stops
+                if (audit != null) audit.close();
+                try {
+                    if (journal != null) journal.close();
+                } catch (Exception e) {
+                    System.out.println("[ShutdownHook] Failed to close enrollment journal: " + e.getMessage());
+                }
                 try {
-                    csvService.exportStudents(studentService);
-                    csvService.exportCourses(courseService);
-                    System.out.println("\n[ShutdownHook] Exported students and courses on exit.");
+                    studentService.close();
+                    courseService.close();
                 } catch (Exception e) {
-                    System.out.println("\n[ShutdownHook] Failed to export on exit: " + e.getMessage());
+                    System.out.println("[ShutdownHook] Failed to close catalog: " + e.getMessage());
+                }
+                // post-mortem copy of the operation metrics, when -Dccrm.metrics.dumpFile is set
+                if (cfg.getMetricsDumpFile() != null) {
+                    try { Metrics.dump(cfg.getMetricsDumpFile()); }
+                    catch (Exception e) { System.out.println("[ShutdownHook] Failed to dump metrics: " + e.getMessage()); }
                 }
             }
         }));
 
+        // java edu.ccrm.cli.MainApp --batch <file|->: run a command script instead of the menus
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args.length > 1 ? args[1] : "-");
+            return;
+        }
+
+        // java edu.ccrm.cli.MainApp --http [port]: serve the HTTP API instead of the menus (Ctrl-C to stop)
+        if (args.length > 0 && args[0].equals("--http")) {
+            try {
+                api = new ApiServer(args.length > 1 ? Integer.parseInt(args[1]) : 8080, cfg.getHttpThreads(),
+                        studentService, courseService, enrollmentService, reportService);
+                api.start();
+                System.out.println("HTTP API listening on port " + api.getPort()
+                        + (api.usesVirtualThreads() ? " (virtual threads)" : " (" + cfg.getHttpThreads() + " platform threads)"));
+            } catch (IOException e) {
+                System.out.println("HTTP API failed to start: " + e.getMessage());
+            }
+            return;
+        }
+
         // Labeled loop used once
         mainLoop:
         while (true) {
@@ -78,6 +202,21 @@ public class MainApp {
         sc.close();
     }
 
+    private static void runBatch(String source) {
+        BatchRunner runner = new BatchRunner(studentService, courseService, enrollmentService, csvService, flusher, backupService);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024));
+        try (BufferedReader in = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 64 * 1024)
+                : Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8)) {
+            long failed = runner.run(in, out);
+            if (failed > 0) System.exit(1);
+        } catch (IOException e) {
+            out.flush();
+            System.out.println("Batch failed: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
     private static void printMainMenu() {
         System.out.println("\n--- Main Menu ---");
         System.out.println("1. Manage Students");
@@ -131,11 +270,13 @@ public class MainApp {
         System.out.println("\n--- Course Menu ---");
         System.out.println("1. Add Course");
         System.out.println("2. View All Courses");
+        System.out.println("3. Search Courses (department / semester / instructor)");
         System.out.println("0. Back");
         int ch = readInt();
         switch (ch) {
             case 1 -> addCourse();
             case 2 -> courseService.displayAllCourses();
+            case 3 -> searchCourses();
             case 0 -> {}
             default -> System.out.println("Invalid");
         }
@@ -159,6 +300,16 @@ public class MainApp {
         } catch (Exception e) { System.out.println("Failed to add course: " + e.getMessage()); }
     }
 
+    private static void searchCourses() {
+        System.out.print("Department (blank = any): "); String dept = sc.nextLine().trim();
+        System.out.print("Semester (blank = any): "); String sem = sc.nextLine().trim();
+        System.out.print("InstructorId (blank = any): "); String instr = sc.nextLine().trim();
+        List<Course> found = courseService.filter(instr.isEmpty() ? null : instr,
+                dept.isEmpty() ? null : dept, sem.isEmpty() ? null : sem);
+        found.forEach(System.out::println);
+        System.out.println(found.size() + " course(s) found.");
+    }
+
     /* ---------- Enrollments ---------- */
     private static void enrollmentMenu() {
         System.out.println("\n--- Enrollment Menu ---");
@@ -166,6 +317,7 @@ public class MainApp {
         System.out.println("2. Unenroll (by enrollment id)");
         System.out.println("3. Record marks for enrollment");
         System.out.println("4. View All Enrollments");
+        System.out.println("5. Bulk enroll from CSV (enrollmentId,studentId,courseCode,semester)");
         System.out.println("0. Back");
         int ch = readInt();
         switch (ch) {
@@ -181,6 +333,7 @@ public class MainApp {
                 catch (Exception e) { System.out.println("Error: " + e.getMessage()); }
             }
             case 4 -> enrollmentService.displayEnrollments();
+            case 5 -> bulkEnroll();
             case 0 -> {}
             default -> System.out.println("Invalid");
         }
@@ -201,6 +354,21 @@ public class MainApp {
         }
     }
 
+    private static void bulkEnroll() {
+        try {
+            System.out.print("CSV file path: "); Path file = Path.of(sc.nextLine().trim());
+            System.out.print("All-or-nothing per student? (y/n): ");
+            EnrollmentService.BatchMode mode = sc.nextLine().trim().equalsIgnoreCase("y")
+                    ? EnrollmentService.BatchMode.ALL_OR_NOTHING : EnrollmentService.BatchMode.BEST_EFFORT;
+            List<EnrollmentRequest> requests = new ArrayList<>();
+            printImportReport(csvService.readEnrollmentRequests(file, requests));
+            BatchEnrollmentResult result = enrollmentService.enrollAll(requests, mode);
+            result.summary().forEach((outcome, count) -> System.out.println(outcome + " -> " + count));
+        } catch (IOException e) {
+            System.out.println("Bulk enroll failed: " + e.getMessage());
+        }
+    }
+
     /* ---------- IO & Backup ---------- */
     private static void ioMenu() {
         System.out.println("\n--- IO Menu ---");
@@ -209,22 +377,26 @@ public class MainApp {
         System.out.println("3. Export students & courses to data/export/");
         System.out.println("4. Create backup of export folder");
         System.out.println("5. List backups");
+        System.out.println("6. Create compressed archive backup (zip)");
+        System.out.println("7. List / extract archive contents");
+        System.out.println("8. Merge students & courses from CSV (add new, update changed)");
+        System.out.println("9. Restore a backup to data/restore/ (verified)");
+        System.out.println("10. Prune old backups");
         System.out.println("0. Back");
         int ch = readInt();
         switch (ch) {
             case 1 -> {
-                try { csvService.importStudents(cfg.getDataFolder().resolve("students.csv"), studentService); System.out.println("Import done."); }
+                try { printImportReport(csvService.importStudents(cfg.getDataFolder().resolve("students.csv"), studentService)); }
                 catch (IOException e) { System.out.println("Import failed: " + e.getMessage()); }
             }
             case 2 -> {
-                try { csvService.importCourses(cfg.getDataFolder().resolve("courses.csv"), courseService); System.out.println("Import done."); }
+                try { printImportReport(csvService.importCourses(cfg.getDataFolder().resolve("courses.csv"), courseService)); }
                 catch (IOException e) { System.out.println("Import failed: " + e.getMessage()); }
             }
             case 3 -> {
                 try {
-                    Path s = csvService.exportStudents(studentService);
-                    Path c = csvService.exportCourses(courseService);
-                    System.out.println("Exported to: " + s + " and " + c);
+                    List<Path> files = flusher.flushAll();
+                    System.out.println("Exported to: " + files.get(0) + " and " + files.get(1));
                 } catch (IOException e) { System.out.println("Export failed: " + e.getMessage()); }
             }
             case 4 -> {
@@ -233,21 +405,104 @@ public class MainApp {
                     long size = backupService.getBackupSize(backup);
                     System.out.println("Backup created at: " + backup);
                     System.out.println("Backup size (bytes): " + size);
+                    System.out.println("All backups on disk, deduplicated (bytes): " + backupService.getBlobStoreSize());
                 } catch (IOException e) { System.out.println("Backup failed: " + e.getMessage()); }
             }
             case 5 -> {
                 try { backupService.listBackups(); } catch (IOException e) { System.out.println("Failed to list: " + e.getMessage()); }
             }
+            case 6 -> {
+                try {
+                    Path archive = backupService.createArchiveBackup();
+                    System.out.println("Archive created at: " + archive);
+                    System.out.println("Archive size (bytes): " + backupService.getBackupSize(archive));
+                } catch (IOException e) { System.out.println("Archive failed: " + e.getMessage()); }
+            }
+            case 7 -> {
+                try {
+                    System.out.print("Archive file name: "); Path archive = cfg.getBackupFolder().resolve(sc.nextLine().trim());
+                    backupService.listArchive(archive).forEach(System.out::println);
+                    System.out.print("Entry to extract (blank to skip): "); String entry = sc.nextLine().trim();
+                    if (!entry.isEmpty()) {
+                        Path out = backupService.extractFromArchive(archive, entry, cfg.getDataFolder().resolve("restore"));
+                        System.out.println("Extracted to: " + out);
+                    }
+                } catch (IOException e) { System.out.println("Archive read failed: " + e.getMessage()); }
+            }
+            case 8 -> {
+                try {
+                    printImportReport(csvService.importStudents(cfg.getDataFolder().resolve("students.csv"), studentService, CSVImporter.Mode.MERGE));
+                    printImportReport(csvService.importCourses(cfg.getDataFolder().resolve("courses.csv"), courseService, CSVImporter.Mode.MERGE));
+                } catch (IOException e) { System.out.println("Merge failed: " + e.getMessage()); }
+            }
+            case 9 -> {
+                try {
+                    System.out.print("Backup folder name: "); String name = sc.nextLine().trim();
+                    RestoreReport report = backupService.restore(cfg.getBackupFolder().resolve(name), cfg.getDataFolder().resolve("restore").resolve(name));
+                    System.out.println(report);
+                } catch (BackupVerificationException e) {
+                    System.out.println("Restore failed verification, nothing was written:");
+                    e.getReport().printFailures(System.out);
+                } catch (IOException e) { System.out.println("Restore failed: " + e.getMessage()); }
+            }
+            case 10 -> {
+                System.out.print("Keep how many of the newest backups [" + cfg.getBackupKeep() + "]: ");
+                String keep = sc.nextLine().trim();
+                try { System.out.println(backupService.prune(keep.isEmpty() ? cfg.getBackupKeep() : Integer.parseInt(keep))); }
+                catch (IOException | IllegalArgumentException e) { System.out.println("Prune failed: " + e.getMessage()); }
+            }
             case 0 -> {}
             default -> System.out.println("Invalid");
         }
     }
 
+    // a paged catalog that already holds data is used as is; otherwise the binary snapshot wins when it is newer
+    // than both CSVs, and an edited CSV or a bad snapshot falls back to parsing
+    private static CatalogSource loadCatalog() throws IOException {
+        if (studentService.count() > 0 || courseService.count() > 0) {
+            System.out.printf("Opened paged catalog: %d students, %d courses.%n", studentService.count(), courseService.count());
+            return CatalogSource.PAGED;
+        }
+        Path students = cfg.getDataFolder().resolve("students.csv");
+        Path courses = cfg.getDataFolder().resolve("courses.csv");
+        if (BinarySnapshot.isNewerThan(cfg.getSnapshotFile(), students, courses)) {
+            long t = System.nanoTime();
+            try {
+                BinarySnapshot.LoadResult r = BinarySnapshot.load(cfg.getSnapshotFile(), studentService, courseService);
+                System.out.printf("Loaded %d students and %d courses from snapshot in %d ms.%n",
+                        r.students(), r.courses(), (System.nanoTime() - t) / 1_000_000);
+                return CatalogSource.SNAPSHOT;
+            } catch (IOException e) {
+                System.out.println("Snapshot unusable, reading CSVs instead: " + e.getMessage());
+            }
+        }
+        printImportReport(csvService.importStudents(students, studentService));
+        printImportReport(csvService.importCourses(courses, courseService));
+        return CatalogSource.CSV;
+    }
+
+    // records one startup step that began at t and returns the time it ended
+    private static long phase(String name, long t) {
+        Metrics.operation(name).stop(t, true);
+        return System.nanoTime();
+    }
+
+    private static void printImportReport(ImportReport report) {
+        System.out.println(report);
+        report.printRejects(System.out);
+    }
+
     /* ---------- Reports ---------- */
     private static void reportsMenu() {
         System.out.println("\n--- Reports ---");
         System.out.println("1. GPA for a student");
         System.out.println("2. Grade distribution");
+        System.out.println("3. Top-N students by GPA (deans' list)");
+        System.out.println("4. Bottom-N students by GPA (probation)");
+        System.out.println("5. GPA percentile cutoffs");
+        System.out.println("6. Export full GPA ranking to CSV");
+        System.out.println("7. Operation metrics");
+        System.out.println("8. Dump operation metrics to file");
         System.out.println("0. Back");
         int ch = readInt();
         switch (ch) {
@@ -257,14 +512,59 @@ public class MainApp {
                 System.out.println("GPA: " + String.format("%.3f", gpa));
             }
             case 2 -> {
-                Map<Grade, Long> dist = enrollmentService.gradeDistribution();
+                System.out.print("Scope - course code, dept:<name>, a semester, or blank for all: ");
+                String scope = sc.nextLine().trim();
+                Map<Grade, Long> dist;
+                if (scope.isEmpty()) dist = enrollmentService.gradeDistribution();
+                else if (scope.regionMatches(true, 0, "dept:", 0, 5)) dist = enrollmentService.gradeDistributionForDepartment(scope.substring(5).trim());
+                else if (Arrays.stream(Semester.values()).anyMatch(sem -> sem.name().equalsIgnoreCase(scope)))
+                    dist = enrollmentService.gradeDistributionForSemester(Semester.valueOf(scope.toUpperCase()));
+                else dist = enrollmentService.gradeDistributionForCourse(scope);
                 dist.forEach((g, c) -> System.out.println(g + " -> " + c));
             }
+            case 3, 4 -> {
+                ReportService.Cohort cohort = readCohort();
+                System.out.print("How many: "); int n = readInt();
+                List<ReportService.StudentGpa> list = ch == 3 ? reportService.topN(cohort, n) : reportService.bottomN(cohort, n);
+                System.out.println("--- " + cohort + " ---");
+                for (int i = 0; i < list.size(); i++) {
+                    ReportService.StudentGpa s = list.get(i);
+                    System.out.printf("%3d. %-10s %-24s %-18s %.3f (%d cr)%n", i + 1, s.studentId(), s.name(), s.program(), s.gpa(), s.gradedCredits());
+                }
+            }
+            case 5 -> {
+                ReportService.Cohort cohort = readCohort();
+                double[] pct = {10, 25, 50, 75, 90, 95, 99};
+                double[] cut = reportService.percentiles(cohort, pct);
+                System.out.println("--- " + cohort + " ---");
+                for (int i = 0; i < pct.length; i++) System.out.printf("P%-3.0f %.2f%n", pct[i], cut[i]);
+            }
+            case 6 -> {
+                try { System.out.println("Ranking written to: " + reportService.exportRanking(readCohort())); }
+                catch (IOException e) { System.out.println("Ranking export failed: " + e.getMessage()); }
+            }
+            case 7 -> System.out.print(Metrics.report());
+            case 8 -> {
+                Path file = cfg.getDataFolder().resolve("metrics_" + java.time.LocalDateTime.now().format(cfg.getTimestampFormatter()) + ".txt");
+                try { System.out.println("Metrics written to: " + Metrics.dump(file)); }
+                catch (IOException e) { System.out.println("Metrics dump failed: " + e.getMessage()); }
+            }
             case 0 -> {}
             default -> System.out.println("Invalid");
         }
     }
 
+    private static ReportService.Cohort readCohort() {
+        System.out.print("Program (blank = all): "); String program = sc.nextLine().trim();
+        System.out.print("Semester (SPRING/SUMMER/FALL, blank = cumulative): "); String sem = sc.nextLine().trim();
+        try {
+            return new ReportService.Cohort(program.isEmpty() ? null : program, sem.isEmpty() ? null : Semester.valueOf(sem.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown semester, using cumulative GPA.");
+            return new ReportService.Cohort(program.isEmpty() ? null : program, null);
+        }
+    }
+
     private static int readInt() {
         try { return Integer.parseInt(sc.nextLine().trim()); } catch (Exception e) { return -1; }
     }
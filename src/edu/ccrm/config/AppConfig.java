@@ -9,13 +9,64 @@ public final class AppConfig {
     private final Path dataFolder;
     private final Path exportFolder;
     private final Path backupFolder;
+    private final int backupThreads;
+    private final int backupKeep;
     private final DateTimeFormatter timestampFormatter;
+    private final long parallelImportThresholdBytes;
+    private final Path journalFolder;
+    private final String journalDurability;
+    private final long journalBatchMillis;
+    private final long journalSnapshotEveryOps;
+    private final Path snapshotFile;
+    private final String enrollmentStorage;
+    private final int httpThreads;
+    private final Path metricsDumpFile;
+    private final String catalogStorage;
+    private final Path catalogFolder;
+    private final int catalogCacheEntries;
+    private final Path changeLogFile;
+    private final long flushIntervalSeconds;
+    private final long flushShutdownTimeoutMillis;
+    private final int eventCapacity;
+    private final String eventOverflow;
+    private final Path eventAuditFile;
 
     private AppConfig() {
-        this.dataFolder = Paths.get("data");
+        this.dataFolder = Paths.get(System.getProperty("ccrm.dataFolder", "data"));
         this.exportFolder = dataFolder.resolve("export");
-        this.backupFolder = Paths.get("backups");
+        this.backupFolder = Paths.get(System.getProperty("ccrm.backupFolder", "backups"));
+        // files copied/verified at once by backup and restore; the work is mostly I/O
+        this.backupThreads = Integer.getInteger("ccrm.backup.threads", 4);
+        // default for pruning: how many of the newest backups to keep
+        this.backupKeep = Integer.getInteger("ccrm.backup.keep", 10);
         this.timestampFormatter = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+        this.parallelImportThresholdBytes = Long.getLong("ccrm.import.parallelThresholdBytes", 32L << 20);
+        this.journalFolder = dataFolder.resolve("journal");
+        this.journalDurability = System.getProperty("ccrm.journal.durability", "BATCHED");
+        this.journalBatchMillis = Long.getLong("ccrm.journal.batchMillis", 10);
+        this.journalSnapshotEveryOps = Long.getLong("ccrm.journal.snapshotEveryOps", 100_000);
+        this.snapshotFile = dataFolder.resolve("ccrm.snapshot");
+        this.enrollmentStorage = System.getProperty("ccrm.enrollment.storage", "OBJECTS");
+        // only used when the JVM has no virtual threads (before Java 21)
+        this.httpThreads = Integer.getInteger("ccrm.http.threads", 64);
+        // unset = no dump on exit; the Reports menu can still write one on demand
+        String dump = System.getProperty("ccrm.metrics.dumpFile");
+        this.metricsDumpFile = dump == null || dump.isBlank() ? null : Paths.get(dump);
+        // MEMORY keeps students and courses in heap maps; PAGED keeps them in page files under data/catalog
+        this.catalogStorage = System.getProperty("ccrm.catalog.storage", "MEMORY");
+        this.catalogFolder = dataFolder.resolve("catalog");
+        this.catalogCacheEntries = Integer.getInteger("ccrm.catalog.cacheEntries", 100_000);
+        // student/course changes since the last snapshot, appended by the background flusher
+        this.changeLogFile = dataFolder.resolve("ccrm.changes");
+        this.flushIntervalSeconds = Long.getLong("ccrm.flush.intervalSeconds", 30);
+        // how long exit waits for the last delta before giving up on it
+        this.flushShutdownTimeoutMillis = Long.getLong("ccrm.flush.shutdownTimeoutMillis", 5000);
+        // domain event ring: slots (a power of two), and BLOCK or DROP when a subscriber falls a full ring behind
+        this.eventCapacity = Integer.getInteger("ccrm.events.capacity", 8192);
+        this.eventOverflow = System.getProperty("ccrm.events.overflow", "BLOCK");
+        // unset = no audit log subscriber
+        String audit = System.getProperty("ccrm.events.auditFile");
+        this.eventAuditFile = audit == null || audit.isBlank() ? null : Paths.get(audit);
     }
 
     public static synchronized AppConfig getInstance() {
@@ -26,5 +77,25 @@ public final class AppConfig {
     public Path getDataFolder() { return dataFolder; }
     public Path getExportFolder() { return exportFolder; }
     public Path getBackupFolder() { return backupFolder; }
+    public int getBackupThreads() { return backupThreads; }
+    public int getBackupKeep() { return backupKeep; }
     public DateTimeFormatter getTimestampFormatter() { return timestampFormatter; }
+    public long getParallelImportThresholdBytes() { return parallelImportThresholdBytes; }
+    public Path getJournalFolder() { return journalFolder; }
+    public String getJournalDurability() { return journalDurability; }
+    public long getJournalBatchMillis() { return journalBatchMillis; }
+    public long getJournalSnapshotEveryOps() { return journalSnapshotEveryOps; }
+    public Path getSnapshotFile() { return snapshotFile; }
+    public String getEnrollmentStorage() { return enrollmentStorage; }
+    public int getHttpThreads() { return httpThreads; }
+    public Path getMetricsDumpFile() { return metricsDumpFile; }
+    public String getCatalogStorage() { return catalogStorage; }
+    public Path getCatalogFolder() { return catalogFolder; }
+    public int getCatalogCacheEntries() { return catalogCacheEntries; }
+    public Path getChangeLogFile() { return changeLogFile; }
+    public long getFlushIntervalSeconds() { return flushIntervalSeconds; }
+    public long getFlushShutdownTimeoutMillis() { return flushShutdownTimeoutMillis; }
+    public int getEventCapacity() { return eventCapacity; }
+    public String getEventOverflow() { return eventOverflow; }
+    public Path getEventAuditFile() { return eventAuditFile; }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package edu.ccrm.domain;
 
+import edu.ccrm.util.StringPool;
+
 public class Course {
     private final String courseCode;
     private final String title;
@@ -9,12 +11,12 @@ public class Course {
     private final String department;
 
     private Course(Builder b) {
-        this.courseCode = b.courseCode;
+        this.courseCode = StringPool.canonical(b.courseCode);
         this.title = b.title;
         this.creditHours = b.creditHours;
-        this.instructorId = b.instructorId;
+        this.instructorId = StringPool.canonical(b.instructorId);
         this.semester = b.semester;
-        this.department = b.department;
+        this.department = StringPool.canonical(b.department);
     }
 
     public String getCourseCode() { return courseCode; }
@@ -1,21 +1,34 @@
 package edu.ccrm.domain;
 
+import edu.ccrm.util.StringPool;
+
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public class Enrollment {
     private final String enrollmentId;
     private final String studentId;
     private final String courseCode;
     private final Semester semester;
-    private Grade grade;
-    private final LocalDateTime enrollmentDate;
+    private volatile Grade grade;
+    // wall-clock date-time as UTC-based epoch millis (the journal's encoding); saves a LocalDateTime/LocalDate/LocalTime triple per row
+    private final long enrollmentMillis;
 
     public Enrollment(String enrollmentId, String studentId, String courseCode, Semester semester) {
+        this(enrollmentId, studentId, courseCode, semester, LocalDateTime.now());
+    }
+
+    public Enrollment(String enrollmentId, String studentId, String courseCode, Semester semester, LocalDateTime enrollmentDate) {
+        this(enrollmentId, studentId, courseCode, semester, enrollmentDate.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    public Enrollment(String enrollmentId, String studentId, String courseCode, Semester semester, long enrollmentMillis) {
         this.enrollmentId = enrollmentId;
-        this.studentId = studentId;
-        this.courseCode = courseCode;
+        // shared with the Student/Course and every other enrollment that names them
+        this.studentId = StringPool.canonical(studentId);
+        this.courseCode = StringPool.canonical(courseCode);
         this.semester = semester;
-        this.enrollmentDate = LocalDateTime.now();
+        this.enrollmentMillis = enrollmentMillis;
     }
 
     public String getEnrollmentId() { return enrollmentId; }
@@ -23,12 +36,15 @@ public class Enrollment {
     public String getCourseCode() { return courseCode; }
     public Semester getSemester() { return semester; }
     public Grade getGrade() { return grade; }
-    public LocalDateTime getEnrollmentDate() { return enrollmentDate; }
+    public LocalDateTime getEnrollmentDate() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(enrollmentMillis, 1000), Math.floorMod(enrollmentMillis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+    public long getEnrollmentMillis() { return enrollmentMillis; }
     public void setGrade(Grade grade) { this.grade = grade; }
 
     @Override
     public String toString() {
         return String.format("Enrollment[id=%s, student=%s, course=%s, sem=%s, grade=%s, date=%s]",
-                enrollmentId, studentId, courseCode, semester, grade, enrollmentDate);
+                enrollmentId, studentId, courseCode, semester, grade, getEnrollmentDate());
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package edu.ccrm.domain;
 
+import edu.ccrm.util.StringPool;
+
 import java.time.LocalDate;
 
 public abstract class Person {
@@ -10,7 +12,7 @@ public abstract class Person {
 
     public Person(String id, String name, String email, LocalDate dateOfBirth) {
         assert id != null && !id.isEmpty() : "ID cannot be null or empty";
-        this.id = id;
+        this.id = StringPool.canonical(id);
         this.name = name;
         this.email = email;
         this.dateOfBirth = dateOfBirth;
@@ -1,16 +1,18 @@
 package edu.ccrm.domain;
 
+import edu.ccrm.util.StringPool;
+
 import java.time.LocalDate;
 
 public class Student extends Person {
     private String regNo;
     private String program;
-    private boolean active = true;
+    private volatile boolean active = true;
 
     public Student(String id, String name, String email, LocalDate dob, String regNo, String program) {
         super(id, name, email, dob);
         this.regNo = regNo;
-        this.program = program;
+        this.program = StringPool.canonical(program);
     }
 
     @Override public String getRole() { return "Student"; }
@@ -18,7 +20,7 @@ public class Student extends Person {
     public String getProgram() { return program; }
     public boolean isActive() { return active; }
     public void setRegNo(String regNo) { this.regNo = regNo; }
-    public void setProgram(String program) { this.program = program; }
+    public void setProgram(String program) { this.program = StringPool.canonical(program); }
     public void deactivate() { this.active = false; }
 
     @Override
@@ -0,0 +1,54 @@
+package edu.ccrm.events;
+
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+/*
+ * One slot of the EventRing. Slots are allocated once and overwritten as the ring wraps, so a handler must
+ * copy whatever it keeps beyond onEvent. Fields that do not apply to the type are null.
+ */
+public final class DomainEvent {
+    public enum Type {
+        STUDENT_ADDED, STUDENT_UPDATED, STUDENT_DEACTIVATED, STUDENT_REMOVED,
+        COURSE_ADDED, COURSE_UPDATED, COURSE_REMOVED,
+        ENROLLED, UNENROLLED, MARKS_RECORDED
+    }
+
+    private Type type;
+    private long timestamp;
+    private String id;          // student id, course code or enrollment id
+    private String studentId;
+    private String courseCode;
+    private Semester semester;
+    private Grade grade;
+
+    DomainEvent() {}
+
+    void set(Type type, String id, String studentId, String courseCode, Semester semester, Grade grade) {
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+        this.id = id;
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+        this.semester = semester;
+        this.grade = grade;
+    }
+
+    public Type getType() { return type; }
+    public long getTimestamp() { return timestamp; }
+    public String getId() { return id; }
+    public String getStudentId() { return studentId; }
+    public String getCourseCode() { return courseCode; }
+    public Semester getSemester() { return semester; }
+    public Grade getGrade() { return grade; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(type).append(' ').append(id);
+        if (studentId != null && !studentId.equals(id)) sb.append(" student=").append(studentId);
+        if (courseCode != null && !courseCode.equals(id)) sb.append(" course=").append(courseCode);
+        if (semester != null) sb.append(" semester=").append(semester);
+        if (grade != null) sb.append(" grade=").append(grade);
+        return sb.toString();
+    }
+}
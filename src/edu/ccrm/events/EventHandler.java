@@ -0,0 +1,8 @@
+package edu.ccrm.events;
+
+// Called on the subscriber's own thread, in publish order. endOfBatch marks the last event currently
+// available, which is the place to flush buffered output. The event slot is reused after the call returns.
+@FunctionalInterface
+public interface EventHandler {
+    void onEvent(DomainEvent event, long sequence, boolean endOfBatch) throws Exception;
+}
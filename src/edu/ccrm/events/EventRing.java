@@ -0,0 +1,190 @@
+package edu.ccrm.events;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Bounded ring of preallocated DomainEvent slots that the services publish into and any number of
+ * subscribers read from, each on its own thread and at its own pace.
+ *
+ * Publishers claim a sequence number with a CAS on the cursor, fill the slot and mark it published by
+ * storing the sequence's lap number in a flag array, so several service threads can publish at once
+ * without a lock and nothing is allocated per event. A claim may not lap the slowest subscriber; when it
+ * would, the overflow policy either makes the publisher wait or drops the event (counted as
+ * events.dropped). With no subscribers, publishing returns at once. Each subscriber reads every event
+ * published since its last pass as one batch and only then advances its sequence.
+ */
+public final class EventRing {
+    public enum Overflow {
+        BLOCK, // publishers wait for the slowest subscriber; no event is lost
+        DROP   // publishers never wait; events that do not fit are dropped and counted
+    }
+
+    private static final int SPINS = 100;
+
+    private final DomainEvent[] slots;
+    private final int mask, shift;
+    private final AtomicIntegerArray published;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final Overflow overflow;
+    private final int maxBatch;
+    private final LongAdder dropped = Metrics.counter("events.dropped");
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    // lowest subscriber sequence seen by the last full scan; it only ever lags the real minimum
+    private volatile long gatingCache = -1;
+
+    public EventRing(int capacity, Overflow overflow) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        this.slots = new DomainEvent[capacity];
+        for (int i = 0; i < capacity; i++) slots[i] = new DomainEvent();
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        this.published = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) published.set(i, -1);
+        this.overflow = overflow;
+        this.maxBatch = Math.max(1, capacity / 4);
+    }
+
+    public int getCapacity() { return slots.length; }
+    public Overflow getOverflow() { return overflow; }
+    public long getPublished() { return cursor.get() + 1; }
+    public long getDropped() { return dropped.sum(); }
+
+    public void publish(DomainEvent.Type type, String id) { publish(type, id, null, null, null, null); }
+
+    public void publish(DomainEvent.Type type, Enrollment e, Grade grade) {
+        publish(type, e.getEnrollmentId(), e.getStudentId(), e.getCourseCode(), e.getSemester(), grade);
+    }
+
+    public void publish(DomainEvent.Type type, String id, String studentId, String courseCode,
+                        Semester semester, Grade grade) {
+        long seq = claim();
+        if (seq < 0) return;
+        int slot = (int) seq & mask;
+        slots[slot].set(type, id, studentId, courseCode, semester, grade);
+        published.lazySet(slot, (int) (seq >>> shift));
+    }
+
+    // starts a subscriber thread that sees every event published from now on
+    public synchronized Subscription subscribe(String name, EventHandler handler) {
+        Subscription s = new Subscription(name, handler);
+        s.sequence.set(cursor.get());
+        Subscription[] next = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        next[next.length - 1] = s;
+        subscriptions = next;
+        // again after joining the gating list: claims made from here on cannot lap this sequence
+        s.sequence.set(cursor.get());
+        s.thread.start();
+        return s;
+    }
+
+    private synchronized void unsubscribe(Subscription s) {
+        Subscription[] next = Arrays.stream(subscriptions).filter(x -> x != s).toArray(Subscription[]::new);
+        subscriptions = next;
+    }
+
+    // returns the claimed sequence, or -1 when there is nobody to deliver to or the event was dropped
+    private long claim() {
+        Subscription[] subs = subscriptions;
+        if (subs.length == 0) return -1;
+        while (true) {
+            long current = cursor.get(), next = current + 1, wrap = next - slots.length;
+            if (wrap > gatingCache) {
+                long min = minSequence(subs, current);
+                gatingCache = min;
+                if (wrap > min) {
+                    if (overflow == Overflow.DROP) { dropped.increment(); return -1; }
+                    LockSupport.parkNanos(1_000);
+                    subs = subscriptions;
+                    continue;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) return next;
+        }
+    }
+
+    private static long minSequence(Subscription[] subs, long min) {
+        for (Subscription s : subs) min = Math.min(min, s.sequence.get());
+        return min;
+    }
+
+    // last sequence in [from, to] up to which every slot has been published
+    private long highestPublished(long from, long to) {
+        for (long s = from; s <= to; s++) {
+            if (published.get((int) s & mask) != (int) (s >>> shift)) return s - 1;
+        }
+        return to;
+    }
+
+    public final class Subscription implements Closeable {
+        private final String name;
+        private final EventHandler handler;
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final LongAdder errors;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Subscription(String name, EventHandler handler) {
+            this.name = name;
+            this.handler = handler;
+            this.errors = Metrics.counter("events." + name + ".errors");
+            this.thread = new Thread(this::run, "ccrm-events-" + name);
+            thread.setDaemon(true);
+        }
+
+        public String getName() { return name; }
+        // events published but not yet handled by this subscriber
+        public long getLag() { return cursor.get() - sequence.get(); }
+
+        private void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (true) {
+                long available = highestPublished(next, Math.min(cursor.get(), next + maxBatch - 1));
+                if (available < next) {
+                    if (!running) return;
+                    // spin briefly, then back off to parking so an idle subscriber costs nothing
+                    if (++idle < SPINS) Thread.onSpinWait();
+                    else LockSupport.parkNanos(Math.min(1_000_000L, 10_000L << Math.min(7, (idle - SPINS) / 16)));
+                    continue;
+                }
+                idle = 0;
+                for (long s = next; s <= available; s++) {
+                    try {
+                        handler.onEvent(slots[(int) s & mask], s, s == available);
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                }
+                sequence.lazySet(available);
+                next = available + 1;
+            }
+        }
+
+        // handles what has been published so far, stops the thread and closes the handler if it is Closeable
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            unsubscribe(this);
+            if (handler instanceof Closeable c) {
+                try { c.close(); } catch (IOException e) { errors.increment(); }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package edu.ccrm.exceptions;
+
+import edu.ccrm.service.RestoreReport;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+// A restore whose copies did not match the manifest; nothing was written to the destination.
+public class BackupVerificationException extends IOException {
+    private static final long serialVersionUID = 1L;
+    private final RestoreReport report;
+
+    public BackupVerificationException(RestoreReport report) {
+        super(report.getFailures().size() + " of " + report.getFiles().size() + " files failed verification: "
+                + report.getFailures().stream().limit(5).map(String::valueOf).collect(Collectors.joining("; ")));
+        this.report = report;
+    }
+
+    public RestoreReport getReport() { return report; }
+}
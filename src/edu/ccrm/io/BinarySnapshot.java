@@ -0,0 +1,185 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/*
+ * Binary image of the student and course catalogs, used instead of re-parsing the CSVs at startup.
+ *
+ *   header      magic, version, student count, course count, dictionary offset, crc32 of the rest
+ *   students    fixed 28-byte records: id, name, email, regNo, program (string refs), dob epoch day, active
+ *   courses     fixed 24-byte records: code, title, instructor, department (string refs), credits, semester
+ *   dictionary  string count, end offset of every string, then all strings as one UTF-8 blob
+ *
+ * Every distinct string is stored once and records refer to it by index (-1 for null), so loading is
+ * one pass over the dictionary and a fixed-stride walk over the records of a memory-mapped file.
+ * Enrollments are not included: the enrollment journal's own snapshot already restores them.
+ */
+public final class BinarySnapshot {
+    private static final long MAGIC = 0x4343524D534E4150L; // "CCRMSNAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int STUDENT_BYTES = 28;
+    private static final int COURSE_BYTES = 24;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    public record LoadResult(int students, int courses) {}
+
+    private BinarySnapshot() {}
+
+    // usable only if it is at least as new as every source it replaces
+    public static boolean isNewerThan(Path snapshot, Path... sources) throws IOException {
+        if (Files.notExists(snapshot)) return false;
+        long at = Files.getLastModifiedTime(snapshot).toMillis();
+        for (Path src : sources) {
+            if (Files.exists(src) && Files.getLastModifiedTime(src).toMillis() > at) return false;
+        }
+        return true;
+    }
+
+    // written to a temp file and renamed into place, like the CSV exports
+    public static void write(Path file, StudentService ss, CourseService cs) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+                Map<String, Integer> ids = new HashMap<>();
+                List<String> strings = new ArrayList<>();
+                ch.position(HEADER_BYTES);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 256 * 1024));
+                int students = 0, courses = 0;
+                for (Iterator<Student> it = ss.stream().iterator(); it.hasNext(); students++) {
+                    Student s = it.next();
+                    out.writeInt(ref(s.getId(), ids, strings));
+                    out.writeInt(ref(s.getName(), ids, strings));
+                    out.writeInt(ref(s.getEmail(), ids, strings));
+                    out.writeInt(ref(s.getRegNo(), ids, strings));
+                    out.writeInt(ref(s.getProgram(), ids, strings));
+                    out.writeInt(s.getDateOfBirth() == null ? NO_DATE : (int) s.getDateOfBirth().toEpochDay());
+                    out.writeInt(s.isActive() ? 1 : 0);
+                }
+                for (Iterator<Course> it = cs.stream().iterator(); it.hasNext(); courses++) {
+                    Course c = it.next();
+                    out.writeInt(ref(c.getCourseCode(), ids, strings));
+                    out.writeInt(ref(c.getTitle(), ids, strings));
+                    out.writeInt(ref(c.getInstructorId(), ids, strings));
+                    out.writeInt(ref(c.getDepartment(), ids, strings));
+                    out.writeInt(c.getCreditHours());
+                    out.writeInt(c.getSemester() == null ? -1 : c.getSemester().ordinal());
+                }
+                long dictOffset = HEADER_BYTES + (long) students * STUDENT_BYTES + (long) courses * COURSE_BYTES;
+                out.writeInt(strings.size());
+                List<byte[]> encoded = new ArrayList<>(strings.size());
+                int end = 0;
+                for (String s : strings) {
+                    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                    encoded.add(b);
+                    out.writeInt(end += b.length);
+                }
+                for (byte[] b : encoded) out.write(b);
+                out.flush();
+
+                CRC32 crc = new CRC32();
+                crc.update(ch.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, ch.size() - HEADER_BYTES));
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putLong(MAGIC).putInt(VERSION).putInt(students).putInt(courses).putInt(0)
+                        .putLong(dictOffset).putLong(crc.getValue()).flip();
+                ch.write(header, 0);
+                ch.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // decodes everything before touching the services, so a corrupt file leaves them empty for the CSV fallback
+    public static LoadResult load(Path file, StudentService ss, CourseService cs) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) throw new IOException("Snapshot truncated: " + file);
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.getLong(0) != MAGIC) throw new IOException("Not a CCRM snapshot: " + file);
+        if (buf.getInt(8) != VERSION) throw new IOException("Unsupported snapshot version " + buf.getInt(8) + ": " + file);
+        int students = buf.getInt(12), courses = buf.getInt(16);
+        long dictOffset = buf.getLong(24);
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(HEADER_BYTES, buf.capacity() - HEADER_BYTES));
+        if (crc.getValue() != buf.getLong(32)) throw new IOException("Snapshot checksum mismatch: " + file);
+
+        // records are fixed width, so any slice can be decoded independently; absolute gets keep the buffer shareable
+        String[] dict = readDictionary(buf, (int) dictOffset);
+        Student[] studentArr = new Student[students];
+        IntStream.range(0, students).parallel().forEach(i -> {
+            int p = HEADER_BYTES + i * STUDENT_BYTES;
+            int dob = buf.getInt(p + 20);
+            Student s = new Student(str(dict, buf.getInt(p)), str(dict, buf.getInt(p + 4)), str(dict, buf.getInt(p + 8)),
+                    dob == NO_DATE ? null : LocalDate.ofEpochDay(dob), str(dict, buf.getInt(p + 12)), str(dict, buf.getInt(p + 16)));
+            if (buf.getInt(p + 24) == 0) s.deactivate();
+            studentArr[i] = s;
+        });
+        Semester[] semesters = Semester.values();
+        int courseBase = HEADER_BYTES + students * STUDENT_BYTES;
+        Course[] courseArr = new Course[courses];
+        IntStream.range(0, courses).parallel().forEach(i -> {
+            int p = courseBase + i * COURSE_BYTES;
+            int sem = buf.getInt(p + 20);
+            courseArr[i] = new Course.Builder()
+                    .courseCode(str(dict, buf.getInt(p))).title(str(dict, buf.getInt(p + 4)))
+                    .instructorId(str(dict, buf.getInt(p + 8))).department(str(dict, buf.getInt(p + 12)))
+                    .creditHours(buf.getInt(p + 16)).semester(sem < 0 ? null : semesters[sem])
+                    .build();
+        });
+        Arrays.stream(studentArr).parallel().forEach(ss::addStudent);
+        Arrays.stream(courseArr).parallel().forEach(cs::addCourse);
+        return new LoadResult(students, courses);
+    }
+
+    private static String[] readDictionary(ByteBuffer buf, int offset) {
+        int count = buf.getInt(offset);
+        int ends = offset + 4;
+        int blobStart = ends + 4 * count;
+        byte[] blob = new byte[buf.capacity() - blobStart];
+        buf.get(blobStart, blob);
+        String[] dict = new String[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            int start = i == 0 ? 0 : buf.getInt(ends + 4 * (i - 1));
+            dict[i] = new String(blob, start, buf.getInt(ends + 4 * i) - start, StandardCharsets.UTF_8);
+        });
+        return dict;
+    }
+
+    private static int ref(String s, Map<String, Integer> ids, List<String> strings) {
+        if (s == null) return -1;
+        return ids.computeIfAbsent(s, k -> { strings.add(k); return strings.size() - 1; });
+    }
+
+    private static String str(String[] dict, int ref) { return ref < 0 ? null : dict[ref]; }
+}
@@ -0,0 +1,87 @@
+package edu.ccrm.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+// Streams rows into a temp file next to the target, fsyncs it and renames it over the target,
+// so readers (and a crash mid-export) only ever see the old file or the complete new one.
+public class CSVExporter {
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    public static final class Line {
+        private final Writer out;
+        private boolean first = true;
+
+        Line(Writer out) { this.out = out; }
+
+        public Line field(String value) {
+            try {
+                if (!first) out.write(',');
+                first = false;
+                if (value != null) writeEscaped(out, value);
+                return this;
+            } catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+
+        public Line field(int value) { return field(Integer.toString(value)); }
+        public Line field(Object value) { return field(value == null ? null : value.toString()); }
+
+        void end() throws IOException { out.write('\n'); first = true; }
+    }
+
+    // returns the number of data rows written
+    public <T> long write(Path file, String header, Iterator<T> rows, BiConsumer<T, Line> mapper) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        long count = 0;
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer w = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(ch), StandardCharsets.UTF_8), WRITE_BUFFER)) {
+                w.write(header);
+                w.write('\n');
+                Line line = new Line(w);
+                while (rows.hasNext()) {
+                    mapper.accept(rows.next(), line);
+                    line.end();
+                    count++;
+                }
+                w.flush();
+                ch.force(true);
+            } catch (UncheckedIOException e) { throw e.getCause(); }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return count;
+    }
+
+    // RFC 4180 quoting, only for values that need it
+    static void writeEscaped(Writer out, String v) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < v.length() && !quote; i++) {
+            char c = v.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) { out.write(v); return; }
+        out.write('"');
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+}
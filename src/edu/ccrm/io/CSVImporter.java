@@ -0,0 +1,425 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.StudentService;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Streaming RFC 4180 reader: records are parsed straight out of a fixed read buffer into one
+// reusable Row, so memory is bounded by the longest record rather than by the file size.
+public class CSVImporter {
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final int MAX_RECORD_CHARS = 1 << 20;
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 16L << 20;
+    // exceptions that are turned into rejects or defaults instead of failing the import
+    private static final LongAdder MAPPER_EXCEPTIONS = Metrics.counter("import.mapperExceptions");
+    private static final LongAdder UNKNOWN_SEMESTER = Metrics.counter("import.unknownSemester");
+
+    public enum Mode {
+        INSERT, // new ids are added; rows whose id exists are rejected
+        MERGE   // new ids are added, existing ones updated where a field differs, identical rows skipped
+    }
+
+    // returns a reject reason, or null when the row was accepted
+    @FunctionalInterface
+    public interface RowMapper { String map(Row row); }
+
+    public static final class Row {
+        private char[] chars = new char[256];
+        private int length;
+        private int[] bounds = new int[32]; // start/end pairs per field
+        private int fields;
+        private int fieldStart;
+        private long line;
+        private boolean overflow;
+        private String rejectReason;
+
+        public int size() { return fields; }
+        public long line() { return line; }
+
+        // field value trimmed, as the old split-based import did
+        public String get(int i) {
+            int s = bounds[2 * i], e = bounds[2 * i + 1];
+            while (s < e && chars[s] <= ' ') s++;
+            while (e > s && chars[e - 1] <= ' ') e--;
+            return new String(chars, s, e - s);
+        }
+
+        public boolean isEmpty(int i) {
+            for (int k = bounds[2 * i]; k < bounds[2 * i + 1]; k++) if (chars[k] > ' ') return false;
+            return true;
+        }
+
+        // lets a row parser bail out with a reason without throwing: return row.reject("...")
+        public <T> T reject(String reason) { rejectReason = reason; return null; }
+        public String rejectReason() { return rejectReason; }
+
+        boolean isBlank() { return fields == 1 && isEmpty(0); }
+        boolean fieldStarted() { return length > fieldStart; }
+
+        void reset(long line) { length = 0; fields = 0; fieldStart = 0; overflow = false; rejectReason = null; this.line = line; }
+
+        void append(char c) {
+            if (length == MAX_RECORD_CHARS) { overflow = true; return; }
+            if (length == chars.length) chars = Arrays.copyOf(chars, Math.min(chars.length * 2, MAX_RECORD_CHARS));
+            chars[length++] = c;
+        }
+
+        void endField() {
+            if (2 * fields + 1 >= bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            bounds[2 * fields] = fieldStart;
+            bounds[2 * fields + 1] = length;
+            fields++;
+            fieldStart = length;
+        }
+    }
+
+    public ImportReport importStudents(Path csvPath, StudentService studentService) throws IOException {
+        return importStudents(csvPath, studentService, Mode.INSERT);
+    }
+
+    public ImportReport importStudents(Path csvPath, StudentService studentService, Mode mode) throws IOException {
+        Delta delta = new Delta();
+        return delta.into(read(csvPath, row -> {
+            Student s = parseStudent(row);
+            return s == null ? row.rejectReason() : addStudent(studentService, s, mode, delta);
+        }), mode);
+    }
+
+    public ImportReport importCourses(Path csvPath, CourseService courseService) throws IOException {
+        return importCourses(csvPath, courseService, Mode.INSERT);
+    }
+
+    public ImportReport importCourses(Path csvPath, CourseService courseService, Mode mode) throws IOException {
+        Delta delta = new Delta();
+        return delta.into(read(csvPath, row -> {
+            Course c = parseCourse(row);
+            return c == null ? row.rejectReason() : addCourse(courseService, c, mode, delta);
+        }), mode);
+    }
+
+    // same results as importStudents: rows are parsed in parallel but added in file order, so the first id wins
+    public ImportReport importStudentsParallel(Path csvPath, StudentService studentService, Mode mode) throws IOException {
+        Delta delta = new Delta();
+        return delta.into(readParallel(csvPath, CSVImporter::parseStudent, s -> addStudent(studentService, s, mode, delta)), mode);
+    }
+
+    public ImportReport importCoursesParallel(Path csvPath, CourseService courseService, Mode mode) throws IOException {
+        Delta delta = new Delta();
+        return delta.into(readParallel(csvPath, CSVImporter::parseCourse, c -> addCourse(courseService, c, mode, delta)), mode);
+    }
+
+    // bulk enrollment file: enrollmentId,studentId,courseCode,semester
+    public ImportReport readEnrollmentRequests(Path csvPath, List<EnrollmentRequest> out) throws IOException {
+        return read(csvPath, row -> {
+            if (row.size() < 4) return "expected 4 fields, found " + row.size();
+            if (row.isEmpty(0) || row.isEmpty(1) || row.isEmpty(2)) return "missing enrollment id, student id or course code";
+            Semester sem;
+            try { sem = Semester.valueOf(row.get(3).toUpperCase()); }
+            catch (IllegalArgumentException e) { return "invalid semester: " + row.get(3); }
+            out.add(new EnrollmentRequest(row.get(0), row.get(1), row.get(2), sem));
+            return null;
+        });
+    }
+
+    private static Student parseStudent(Row row) {
+        if (row.size() < 6) return row.reject("expected 6 fields, found " + row.size());
+        String id = row.get(0);
+        if (id.isEmpty()) return row.reject("missing id");
+        LocalDate dob;
+        try { dob = LocalDate.parse(row.get(3)); }
+        catch (DateTimeParseException e) { return row.reject("invalid dob: " + row.get(3)); }
+        return new Student(id, row.get(1), row.get(2), dob, row.get(4), row.get(5));
+    }
+
+    private static Course parseCourse(Row row) {
+        if (row.size() < 6) return row.reject("expected 6 fields, found " + row.size());
+        String code = row.get(0);
+        if (code.isEmpty()) return row.reject("missing course code");
+        int credits;
+        try { credits = Integer.parseInt(row.get(2)); }
+        catch (NumberFormatException e) { return row.reject("invalid credits: " + row.get(2)); }
+        if (credits <= 0) return row.reject("credits must be > 0: " + credits);
+        Semester sem = null;
+        String semStr = row.get(4);
+        try { if (!semStr.isEmpty()) sem = Semester.valueOf(semStr.toUpperCase()); }
+        catch (IllegalArgumentException ignored) { UNKNOWN_SEMESTER.increment(); /* imports as unscheduled, as before */ }
+        return new Course.Builder()
+                .courseCode(code)
+                .title(row.get(1))
+                .creditHours(credits)
+                .department(row.get(3))
+                .semester(sem)
+                .instructorId(row.isEmpty(5) ? null : row.get(5))
+                .build();
+    }
+
+    // rows applied by a merge, by outcome
+    private static final class Delta {
+        long inserted, updated, unchanged;
+
+        ImportReport into(ImportReport report, Mode mode) {
+            if (mode == Mode.MERGE) report.delta(inserted, updated, unchanged);
+            return report;
+        }
+    }
+
+    // existing ids are looked up first, so a re-imported feed does not throw an exception per known row;
+    // the catch only covers another thread adding the same id in between
+    private static String addStudent(StudentService studentService, Student s, Mode mode, Delta delta) {
+        Student old = studentService.findById(s.getId()).orElse(null);
+        if (old == null) {
+            try { studentService.addStudent(s); }
+            catch (IllegalArgumentException e) { return e.getMessage(); }
+            delta.inserted++;
+            return null;
+        }
+        if (mode == Mode.INSERT) return "Student with ID exists: " + s.getId();
+        if (same(old.getName(), s.getName()) && same(old.getEmail(), s.getEmail()) && Objects.equals(old.getDateOfBirth(), s.getDateOfBirth())
+                && same(old.getRegNo(), s.getRegNo()) && same(old.getProgram(), s.getProgram())) {
+            delta.unchanged++;
+            return null;
+        }
+        // the feed has no status column, so a deactivated student stays deactivated
+        if (!old.isActive()) s.deactivate();
+        try { studentService.updateStudent(s); }
+        catch (IllegalArgumentException e) { return e.getMessage(); }
+        delta.updated++;
+        return null;
+    }
+
+    private static String addCourse(CourseService courseService, Course c, Mode mode, Delta delta) {
+        Course old = courseService.findByCode(c.getCourseCode()).orElse(null);
+        if (old == null) {
+            try { courseService.addCourse(c); }
+            catch (IllegalArgumentException e) { return e.getMessage(); }
+            delta.inserted++;
+            return null;
+        }
+        if (mode == Mode.INSERT) return "Course exists: " + c.getCourseCode();
+        if (same(old.getTitle(), c.getTitle()) && old.getCreditHours() == c.getCreditHours() && same(old.getDepartment(), c.getDepartment())
+                && old.getSemester() == c.getSemester() && same(old.getInstructorId(), c.getInstructorId())) {
+            delta.unchanged++;
+            return null;
+        }
+        try { courseService.updateCourse(c); }
+        catch (IllegalArgumentException e) { return e.getMessage(); }
+        delta.updated++;
+        return null;
+    }
+
+    // an empty field and a missing value are the same thing in a feed
+    private static boolean same(String a, String b) {
+        return a == null || a.isEmpty() ? b == null || b.isEmpty() : a.equals(b);
+    }
+
+    // reads a CSV file with a header line, passing each data row to the mapper
+    public ImportReport read(Path csvPath, RowMapper mapper) throws IOException {
+        if (Files.notExists(csvPath)) throw new NoSuchFileException(csvPath.toString());
+        try (Reader in = Files.newBufferedReader(csvPath, StandardCharsets.UTF_8)) {
+            return read(in, csvPath.toString(), 1, true, mapper);
+        }
+    }
+
+    // firstLine is the physical line of the first character, so slices of a larger file report absolute lines
+    public ImportReport read(Reader in, String source, long firstLine, boolean skipHeader, RowMapper mapper) throws IOException {
+        ImportReport report = new ImportReport(source);
+        char[] buf = new char[READ_BUFFER];
+        Row row = new Row();
+        long line = firstLine;
+        row.reset(line);
+        boolean header = skipHeader;
+        boolean inQuotes = false, afterQuote = false, pendingCR = false;
+        String error = null;
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                if (pendingCR) {
+                    pendingCR = false;
+                    if (c == '\n') continue;
+                }
+                if (inQuotes) {
+                    if (c == '"') { inQuotes = false; afterQuote = true; }
+                    else {
+                        if (c == '\n') line++;
+                        row.append(c);
+                    }
+                    continue;
+                }
+                if (afterQuote) {
+                    afterQuote = false;
+                    if (c == '"') { row.append('"'); inQuotes = true; continue; }
+                    if (c != ',' && c != '\n' && c != '\r' && error == null) error = "unexpected character after closing quote";
+                }
+                switch (c) {
+                    case ',' -> row.endField();
+                    case '"' -> {
+                        if (!row.fieldStarted()) inQuotes = true;
+                        else {
+                            if (error == null) error = "quote inside unquoted field";
+                            row.append(c);
+                        }
+                    }
+                    case '\r', '\n' -> {
+                        pendingCR = c == '\r';
+                        row.endField();
+                        if (header) header = false;
+                        else emit(row, error, mapper, report);
+                        error = null;
+                        row.reset(++line);
+                    }
+                    default -> row.append(c);
+                }
+            }
+        }
+        report.endLine = line;
+        if (inQuotes) {
+            report.endedInQuotes = true;
+            report.rowRead();
+            report.reject(row.line(), "unterminated quoted field");
+        } else if (row.length > 0 || row.fields > 0 || afterQuote) {
+            row.endField();
+            if (!header) emit(row, error, mapper, report);
+        }
+        return report;
+    }
+
+    private static void emit(Row row, String error, RowMapper mapper, ImportReport report) {
+        if (row.isBlank()) return;
+        report.rowRead();
+        if (row.overflow) error = "record longer than " + MAX_RECORD_CHARS + " characters";
+        if (error == null) {
+            try { error = mapper.map(row); }
+            catch (RuntimeException e) {
+                MAPPER_EXCEPTIONS.increment();
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+        }
+        if (error == null) report.imported();
+        else report.reject(row.line(), error);
+    }
+
+    /*
+     * Parallel mode: the file is memory-mapped in chunks cut just after a newline, each chunk is
+     * parsed on the fork-join pool, and the parsed entities are handed to the sink in chunk order.
+     * A cut that lands inside a quoted field shows up as a chunk ending inside quotes; in that case
+     * nothing has been added yet, so the whole file is simply re-read sequentially.
+     */
+    private <T> ImportReport readParallel(Path csvPath, Function<Row, T> parser, Function<T, String> sink) throws IOException {
+        if (Files.notExists(csvPath)) throw new NoSuchFileException(csvPath.toString());
+        List<Parsed<T>> parts;
+        try (FileChannel ch = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            List<long[]> ranges = split(ch);
+            try {
+                parts = ranges.parallelStream()
+                        .map(r -> parseChunk(ch, r[0], r[1], r[0] == 0, parser))
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException e) { throw e.getCause(); }
+        }
+        for (Parsed<T> p : parts) {
+            if (p.report.endedInQuotes) {
+                RowMapper mapper = row -> {
+                    T item = parser.apply(row);
+                    return item == null ? row.rejectReason() : sink.apply(item);
+                };
+                return read(csvPath, mapper);
+            }
+        }
+
+        ImportReport report = new ImportReport(csvPath.toString());
+        long lineOffset = 1;
+        for (Parsed<T> p : parts) {
+            report.merge(p.report, lineOffset);
+            for (int i = 0; i < p.items.size(); i++) {
+                String error = sink.apply(p.items.get(i));
+                if (error == null) report.imported();
+                else report.reject(lineOffset + p.lines[i], error);
+            }
+            lineOffset += p.report.endLine;
+        }
+        return report;
+    }
+
+    private static final class Parsed<T> {
+        final List<T> items = new ArrayList<>();
+        long[] lines = new long[64];
+        ImportReport report;
+
+        void add(T item, long line) {
+            if (items.size() == lines.length) lines = Arrays.copyOf(lines, lines.length * 2);
+            lines[items.size()] = line;
+            items.add(item);
+        }
+    }
+
+    private static List<long[]> split(FileChannel ch) throws IOException {
+        long size = ch.size();
+        int workers = ForkJoinPool.getCommonPoolParallelism() + 1;
+        long target = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, size / (workers * 4L)));
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + target);
+            // move the cut forward to just past the next '\n'
+            scan:
+            while (end < size) {
+                probe.clear();
+                int n = ch.read(probe, end);
+                if (n <= 0) { end = size; break; }
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') { end += i + 1; break scan; }
+                }
+                end += n;
+            }
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    private <T> Parsed<T> parseChunk(FileChannel ch, long start, long end, boolean header, Function<Row, T> parser) {
+        try {
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                    .decode(ch.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            Parsed<T> parsed = new Parsed<>();
+            Reader in = new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+            // chunk-relative line numbers; readParallel shifts them once earlier chunks are counted
+            parsed.report = read(in, "chunk@" + start, 0, header, row -> {
+                T item = parser.apply(row);
+                if (item == null) return row.rejectReason();
+                parsed.add(item, row.line());
+                return null;
+            });
+            return parsed;
+        } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+}
@@ -0,0 +1,188 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Student and course changes made since the last binary snapshot, as CSV rows appended in batches:
+ *
+ *   S,U,id,name,email,dob,regNo,program,active     student upsert
+ *   S,D,id                                          student removed
+ *   C,U,code,title,credits,department,semester,instructorId
+ *   C,D,code
+ *   #,commit,<rows in batch>
+ *
+ * A batch counts only once its commit row is on disk, so a crash mid-append loses that batch and nothing
+ * else. Rows are idempotent upserts and deletes: replaying a batch the snapshot already contains is harmless.
+ *
+ * A full snapshot rotates the log to <file>.old before it starts and deletes that only once the snapshot is
+ * in place, so batches appended while the snapshot is written survive, and a failed snapshot loses nothing.
+ * Recovery replays <file>.old and then <file>.
+ */
+public final class CatalogChangeLog {
+    private static final String HEADER = "kind,op,id,f1,f2,f3,f4,f5,f6";
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    private final Path file;
+    private final Path oldFile;
+    private long rows;
+
+    public CatalogChangeLog(Path file) {
+        this.file = file;
+        this.oldFile = file.resolveSibling(file.getFileName() + ".old");
+    }
+
+    public Path getFile() { return file; }
+
+    // change rows appended since the log was last rotated (counted from disk by apply())
+    public synchronized long rows() { return rows; }
+
+    // appends one committed batch and forces it to disk; returns the number of change rows written
+    public synchronized long append(Collection<Student> students, Collection<String> removedStudents,
+                                    Collection<Course> courses, Collection<String> removedCourses) throws IOException {
+        long n = students.size() + removedStudents.size() + courses.size() + removedCourses.size();
+        if (n == 0) return 0;
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             Writer w = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(ch), StandardCharsets.UTF_8), WRITE_BUFFER)) {
+            if (ch.size() == 0) { w.write(HEADER); w.write('\n'); }
+            CSVExporter.Line line = new CSVExporter.Line(w);
+            try {
+                for (Student s : students) {
+                    line.field("S").field("U").field(s.getId()).field(s.getName()).field(s.getEmail()).field(s.getDateOfBirth())
+                            .field(s.getRegNo()).field(s.getProgram()).field(Boolean.toString(s.isActive()));
+                    line.end();
+                }
+                for (String id : removedStudents) { line.field("S").field("D").field(id); line.end(); }
+                for (Course c : courses) {
+                    line.field("C").field("U").field(c.getCourseCode()).field(c.getTitle()).field(c.getCreditHours())
+                            .field(c.getDepartment()).field(c.getSemester() == null ? null : c.getSemester().name())
+                            .field(c.getInstructorId());
+                    line.end();
+                }
+                for (String code : removedCourses) { line.field("C").field("D").field(code); line.end(); }
+                line.field("#").field("commit").field(Long.toString(n));
+                line.end();
+            } catch (UncheckedIOException e) { throw e.getCause(); }
+            w.flush();
+            ch.force(false);
+        }
+        rows += n;
+        return n;
+    }
+
+    // replays every committed batch onto the services; rows of an unfinished last batch are reported as rejects
+    public synchronized ImportReport apply(StudentService ss, CourseService cs) throws IOException {
+        rows = 0;
+        if (Files.notExists(oldFile)) return apply(file, ss, cs);
+        // a snapshot was interrupted: the rotated batches come first
+        ImportReport old = apply(oldFile, ss, cs), current = apply(file, ss, cs);
+        return ImportReport.combine(oldFile + " + " + file, old, current);
+    }
+
+    private ImportReport apply(Path file, StudentService ss, CourseService cs) throws IOException {
+        if (Files.notExists(file)) return new ImportReport(file.toString());
+        long before = rows;
+        List<Runnable> batch = new ArrayList<>();
+        List<Long> batchLines = new ArrayList<>();
+        ImportReport report = new CSVImporter().read(file, row -> {
+            String kind = row.get(0);
+            if (kind.equals("#")) {
+                batch.forEach(Runnable::run);
+                rows += batch.size();
+                batch.clear();
+                batchLines.clear();
+                return null;
+            }
+            Runnable change;
+            try {
+                change = kind.equals("S") ? studentChange(row, ss) : kind.equals("C") ? courseChange(row, cs) : null;
+            } catch (RuntimeException e) {
+                return "bad change row: " + e.getMessage();
+            }
+            if (change == null) return row.rejectReason() != null ? row.rejectReason() : "unknown change kind: " + kind;
+            batch.add(change);
+            batchLines.add(row.line());
+            return null;
+        });
+        // the reader counted commit rows and uncommitted changes as imported; only applied changes are
+        report.adjust(rows - before, batchLines, "uncommitted change (interrupted append)");
+        return report;
+    }
+
+    // called before a full snapshot starts: later batches go to a fresh file. A rotation left over from a
+    // failed snapshot gets the current batches appended, so one successful snapshot drops both.
+    public synchronized void rotate() throws IOException {
+        if (Files.exists(file)) {
+            if (Files.exists(oldFile)) appendBatches(file, oldFile);
+            else Files.move(file, oldFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+        rows = 0;
+    }
+
+    // copies from's rows after its header to the end of to, forces them, then deletes from
+    private static void appendBatches(Path from, Path to) throws IOException {
+        try (FileChannel in = FileChannel.open(from, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(to, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long pos = HEADER.length() + 1, size = in.size();
+            while (pos < size) pos += in.transferTo(pos, size - pos, out);
+            out.force(false);
+        }
+        Files.delete(from);
+    }
+
+    // called once the snapshot holds everything in the rotated file
+    public synchronized void dropRotated() throws IOException {
+        Files.deleteIfExists(oldFile);
+    }
+
+    private static Runnable studentChange(CSVImporter.Row row, StudentService ss) {
+        if (row.size() < 3) return row.reject("expected an id");
+        String id = row.get(2);
+        if (row.get(1).equals("D")) return () -> ss.removeStudent(id);
+        if (row.size() < 9) return row.reject("expected 9 fields, found " + row.size());
+        Student s = new Student(id, optional(row, 3), optional(row, 4), row.isEmpty(5) ? null : LocalDate.parse(row.get(5)),
+                optional(row, 6), optional(row, 7));
+        if (!Boolean.parseBoolean(row.get(8))) s.deactivate();
+        return () -> {
+            if (ss.findById(id).isPresent()) ss.updateStudent(s); else ss.addStudent(s);
+        };
+    }
+
+    private static Runnable courseChange(CSVImporter.Row row, CourseService cs) {
+        if (row.size() < 3) return row.reject("expected a course code");
+        String code = row.get(2);
+        if (row.get(1).equals("D")) return () -> cs.removeCourse(code);
+        if (row.size() < 8) return row.reject("expected 8 fields, found " + row.size());
+        Course c = new Course.Builder().courseCode(code).title(optional(row, 3)).creditHours(Integer.parseInt(row.get(4)))
+                .department(optional(row, 5)).semester(row.isEmpty(6) ? null : Semester.valueOf(row.get(6)))
+                .instructorId(optional(row, 7)).build();
+        return () -> {
+            if (cs.findByCode(code).isPresent()) cs.updateCourse(c); else cs.addCourse(c);
+        };
+    }
+
+    // the log writes null as an empty field
+    private static String optional(CSVImporter.Row row, int i) { return row.isEmpty(i) ? null : row.get(i); }
+}
@@ -0,0 +1,49 @@
+package edu.ccrm.io;
+
+import edu.ccrm.events.DomainEvent;
+import edu.ccrm.events.EventHandler;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/*
+ * EventRing subscriber that appends every domain event to a CSV file:
+ *   time,sequence,type,id,studentId,courseCode,semester,grade
+ * Lines are buffered and written out at the end of each batch, so a burst of changes costs one write.
+ */
+public final class EventAuditLog implements EventHandler, Closeable {
+    private final Writer out;
+    private final CSVExporter.Line line;
+
+    public EventAuditLog(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        boolean fresh = Files.notExists(file) || Files.size(file) == 0;
+        this.out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+        if (fresh) out.write("time,sequence,type,id,studentId,courseCode,semester,grade\n");
+        this.line = new CSVExporter.Line(out);
+    }
+
+    @Override
+    public void onEvent(DomainEvent e, long sequence, boolean endOfBatch) throws IOException {
+        try {
+            line.field(Instant.ofEpochMilli(e.getTimestamp())).field(Long.toString(sequence)).field(e.getType())
+                    .field(e.getId()).field(e.getStudentId()).field(e.getCourseCode()).field(e.getSemester()).field(e.getGrade());
+        } catch (UncheckedIOException x) { throw x.getCause(); }
+        line.end();
+        if (endOfBatch) out.flush();
+    }
+
+    @Override
+    public void close() throws IOException { out.close(); }
+}
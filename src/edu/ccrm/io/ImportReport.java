@@ -0,0 +1,97 @@
+package edu.ccrm.io;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ImportReport {
+    // only the first rejects are kept in detail so a bad feed cannot blow up the heap
+    private static final int MAX_DETAILED_REJECTS = 1000;
+
+    private final String source;
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    // merge imports only: how the imported rows were applied
+    private boolean merge;
+    private long inserted, updated, unchanged;
+    private final List<Reject> rejects = new ArrayList<>();
+    // parser bookkeeping used when stitching chunk reports together
+    long endLine;
+    boolean endedInQuotes;
+
+    public record Reject(long line, String reason) {
+        @Override public String toString() { return "line " + line + ": " + reason; }
+    }
+
+    public ImportReport(String source) { this.source = source; }
+
+    void rowRead() { rowsRead++; }
+    void imported() { imported++; }
+    void reject(long line, String reason) {
+        rejected++;
+        if (rejects.size() < MAX_DETAILED_REJECTS) rejects.add(new Reject(line, reason));
+    }
+
+    // for readers whose accepted rows are not all imports: sets the real count and rejects the given lines
+    void adjust(long imported, List<Long> rejectedLines, String reason) {
+        this.imported = imported;
+        for (long line : rejectedLines) reject(line, reason);
+    }
+
+    void delta(long inserted, long updated, long unchanged) {
+        this.merge = true;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+    }
+
+    // folds in a chunk's parse results; its accepted rows are counted by the caller once they are added
+    void merge(ImportReport part, long lineOffset) {
+        rowsRead += part.rowsRead;
+        rejected += part.rejected;
+        for (Reject r : part.rejects) {
+            if (rejects.size() < MAX_DETAILED_REJECTS) rejects.add(new Reject(lineOffset + r.line(), r.reason()));
+        }
+    }
+
+    // one report for several files read one after the other; rejects name the file they came from
+    static ImportReport combine(String source, ImportReport... parts) {
+        ImportReport all = new ImportReport(source);
+        for (ImportReport p : parts) {
+            all.rowsRead += p.rowsRead;
+            all.imported += p.imported;
+            all.rejected += p.rejected;
+            all.merge |= p.merge;
+            all.inserted += p.inserted;
+            all.updated += p.updated;
+            all.unchanged += p.unchanged;
+            for (Reject r : p.rejects) {
+                if (all.rejects.size() < MAX_DETAILED_REJECTS) all.rejects.add(new Reject(r.line(), r.reason() + " (" + p.source + ")"));
+            }
+        }
+        return all;
+    }
+
+    public String getSource() { return source; }
+    public long getRowsRead() { return rowsRead; }
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    public long getInserted() { return inserted; }
+    public long getUpdated() { return updated; }
+    public long getUnchanged() { return unchanged; }
+    public List<Reject> getRejects() { return Collections.unmodifiableList(rejects); }
+
+    public void printRejects(PrintStream out) {
+        rejects.forEach(r -> out.println("  " + r));
+        if (rejected > rejects.size()) out.println("  ... " + (rejected - rejects.size()) + " more");
+    }
+
+    @Override
+    public String toString() {
+        if (merge) return String.format("Import[%s: read=%d, imported=%d (inserted=%d, updated=%d, unchanged=%d), rejected=%d]",
+                source, rowsRead, imported, inserted, updated, unchanged, rejected);
+        return String.format("Import[%s: read=%d, imported=%d, rejected=%d]", source, rowsRead, imported, rejected);
+    }
+}
@@ -0,0 +1,209 @@
+package edu.ccrm.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/*
+ * Streams files into a zip archive, deflating each file in 1MB blocks on the fork-join pool.
+ *
+ * Blocks are compressed independently (pigz-style): every block but a file's last ends with a
+ * SYNC_FLUSH, which leaves the deflate stream byte-aligned, so the compressed blocks can simply be
+ * concatenated into one valid entry. Sizes and CRC are only known afterwards, so entries carry a
+ * data descriptor and the central directory at the end has the final values; java.util.zip.ZipFile
+ * and ordinary unzip tools read the result. Plain (non-zip64) format: < 65535 entries, < 4GB.
+ */
+public class ParallelZipWriter implements Closeable {
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    private final OutputStream out;
+    private final int level;
+    private final int maxInFlight;
+    private final Deque<Block> inFlight = new ArrayDeque<>();
+    private final List<Entry> central = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private long written;
+    private long rawBytes;
+
+    private static final class Entry {
+        final byte[] name;
+        final int dosTime, dosDate;
+        long offset, crc, compressed, size;
+        Entry(byte[] name, int dosTime, int dosDate) { this.name = name; this.dosTime = dosTime; this.dosDate = dosDate; }
+    }
+
+    private record Block(Entry entry, byte[] raw, int length, boolean first, boolean last, Future<byte[]> deflated) {}
+
+    public ParallelZipWriter(Path target, int level) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(target), 256 * 1024);
+        this.level = level;
+        // bounds memory to a few blocks per core no matter how large the input is
+        this.maxInFlight = 2 * (ForkJoinPool.getCommonPoolParallelism() + 1);
+    }
+
+    public long getRawBytes() { return rawBytes; }
+    public long getWrittenBytes() { return written; }
+
+    public void addFile(Path file, String entryName) throws IOException {
+        if (central.size() == 0xFFFF) throw new IOException("Too many entries for a zip archive");
+        LocalDateTime mtime = LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault());
+        Entry entry = new Entry(entryName.getBytes(StandardCharsets.UTF_8), dosTime(mtime), dosDate(mtime));
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] raw = readBlock(in);
+            boolean first = true;
+            while (true) {
+                byte[] next = raw.length == 0 ? new byte[0] : readBlock(in);
+                boolean last = next.length == 0;
+                submit(entry, raw, first, last);
+                if (last) break;
+                raw = next;
+                first = false;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            while (!inFlight.isEmpty()) drainOne();
+            long cdOffset = written;
+            for (Entry e : central) writeCentralHeader(e);
+            long cdSize = written - cdOffset;
+            if (cdOffset > MAX_32 || cdSize > MAX_32) throw new IOException("Archive exceeds 4GB (zip64 not supported)");
+            writeInt(0x06054b50);
+            writeShort(0); writeShort(0);
+            writeShort(central.size()); writeShort(central.size());
+            writeInt(cdSize); writeInt(cdOffset);
+            writeShort(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private byte[] readBlock(InputStream in) throws IOException {
+        byte[] buf = in.readNBytes(BLOCK_SIZE);
+        rawBytes += buf.length;
+        return buf;
+    }
+
+    private void submit(Entry entry, byte[] raw, boolean first, boolean last) throws IOException {
+        while (inFlight.size() >= maxInFlight) drainOne();
+        int lvl = level;
+        Future<byte[]> f = ForkJoinPool.commonPool().submit(() -> deflate(raw, lvl, last));
+        inFlight.addLast(new Block(entry, raw, raw.length, first, last, f));
+    }
+
+    private static byte[] deflate(byte[] raw, int level, boolean last) {
+        Deflater d = new Deflater(level, true);
+        try {
+            d.setInput(raw);
+            byte[] buf = new byte[raw.length + raw.length / 8 + 64];
+            int len = 0;
+            if (last) {
+                d.finish();
+                while (!d.finished()) {
+                    if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                    len += d.deflate(buf, len, buf.length - len);
+                }
+            } else {
+                int n;
+                do {
+                    if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                    n = d.deflate(buf, len, buf.length - len, Deflater.SYNC_FLUSH);
+                    len += n;
+                } while (len == buf.length);
+            }
+            return Arrays.copyOf(buf, len);
+        } finally {
+            d.end();
+        }
+    }
+
+    // blocks leave in submission order, so the archive is written strictly sequentially
+    private void drainOne() throws IOException {
+        Block b = inFlight.removeFirst();
+        byte[] compressed;
+        try { compressed = b.deflated().get(); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); throw new IOException("Interrupted while compressing", e); }
+        catch (ExecutionException e) { throw new IOException("Compression failed", e.getCause()); }
+        Entry e = b.entry();
+        if (b.first()) {
+            e.offset = written;
+            crc.reset();
+            writeLocalHeader(e);
+        }
+        crc.update(b.raw(), 0, b.length());
+        out.write(compressed);
+        written += compressed.length;
+        e.compressed += compressed.length;
+        e.size += b.length();
+        if (b.last()) {
+            e.crc = crc.getValue();
+            if (e.size > MAX_32 || e.compressed > MAX_32 || e.offset > MAX_32)
+                throw new IOException("Entry exceeds 4GB (zip64 not supported)");
+            writeInt(0x08074b50);
+            writeInt(e.crc); writeInt(e.compressed); writeInt(e.size);
+            central.add(e);
+        }
+    }
+
+    private void writeLocalHeader(Entry e) throws IOException {
+        writeInt(0x04034b50);
+        writeShort(20);
+        writeShort(0x0808); // data descriptor follows, UTF-8 name
+        writeShort(Deflater.DEFLATED);
+        writeShort(e.dosTime); writeShort(e.dosDate);
+        writeInt(0); writeInt(0); writeInt(0);
+        writeShort(e.name.length); writeShort(0);
+        out.write(e.name);
+        written += e.name.length;
+    }
+
+    private void writeCentralHeader(Entry e) throws IOException {
+        writeInt(0x02014b50);
+        writeShort(20); writeShort(20);
+        writeShort(0x0808);
+        writeShort(Deflater.DEFLATED);
+        writeShort(e.dosTime); writeShort(e.dosDate);
+        writeInt(e.crc); writeInt(e.compressed); writeInt(e.size);
+        writeShort(e.name.length); writeShort(0); writeShort(0);
+        writeShort(0); writeShort(0); writeInt(0);
+        writeInt(e.offset);
+        out.write(e.name);
+        written += e.name.length;
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v); out.write(v >>> 8);
+        written += 2;
+    }
+
+    private void writeInt(long v) throws IOException {
+        out.write((int) v); out.write((int) (v >>> 8)); out.write((int) (v >>> 16)); out.write((int) (v >>> 24));
+        written += 4;
+    }
+
+    private static int dosTime(LocalDateTime t) { return (t.getHour() << 11) | (t.getMinute() << 5) | (t.getSecond() / 2); }
+    private static int dosDate(LocalDateTime t) {
+        int year = Math.max(1980, t.getYear());
+        return ((year - 1980) << 9) | (t.getMonthValue() << 5) | t.getDayOfMonth();
+    }
+}
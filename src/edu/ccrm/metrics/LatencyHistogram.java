@@ -0,0 +1,81 @@
+package edu.ccrm.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Log-linear latency histogram in the HDR style: values below 128 ns get a bucket each, above that every
+ * power of two is split into 64 equal buckets, so any recorded value is off by at most 1/64 (~1.6%).
+ * Buckets are a fixed AtomicLongArray sized for values up to 2^42 ns (~73 min; longer ones are clamped),
+ * which makes record() a couple of atomic increments with no allocation and no lock.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT / 2;
+    private static final long MAX_VALUE = (1L << 42) - 1;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(long nanos) {
+        long v = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        buckets.incrementAndGet(index(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public long count() { return count.sum(); }
+    public long totalNanos() { return sum.sum(); }
+    public long maxNanos() { return max.get(); }
+
+    public double meanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // percentiles are read from one copy of the buckets, so they are consistent with each other
+    public long[] percentiles(double... pcts) {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += copy[i] = buckets.get(i);
+        long[] out = new long[pcts.length];
+        if (total == 0) return out;
+        long top = max.get();
+        for (int p = 0; p < pcts.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(pcts[p] / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += copy[i];
+                if (seen >= rank) { out[p] = Math.min(highestIn(i), top); break; }
+            }
+        }
+        return out;
+    }
+
+    // not atomic with respect to concurrent record() calls; meant for tests and between runs
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    private static int index(long v) {
+        if (v < SUB_COUNT) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - (SUB_BITS - 1);
+        return SUB_COUNT + (shift - 1) * HALF + (int) ((v >>> shift) - HALF);
+    }
+
+    private static long highestIn(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = (index - SUB_COUNT) / HALF + 1;
+        long sub = (index - SUB_COUNT) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
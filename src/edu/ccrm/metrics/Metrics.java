@@ -0,0 +1,136 @@
+package edu.ccrm.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Process-wide registry of operation timings and plain counters. The service operations are constants so
+ * the hot paths never look anything up; other code can register its own by name. Everything is visible
+ * from the Reports menu, over JMX (edu.ccrm:type=Metrics and edu.ccrm:type=Operation,name=...) and as a
+ * text dump for post-mortems.
+ */
+public final class Metrics {
+    private static final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static volatile MBeanServer jmx;
+
+    public static final Operation ENROLL = operation("enroll");
+    public static final Operation ENROLL_ALL = operation("enrollAll", "rows");
+    public static final Operation UNENROLL = operation("unenroll");
+    public static final Operation RECORD_MARKS = operation("recordMarks");
+    public static final Operation GPA = operation("gpa");
+    public static final Operation IMPORT = operation("import", "rows");
+    public static final Operation EXPORT = operation("export", "rows");
+    public static final Operation BACKUP = operation("backup", "bytes");
+
+    private Metrics() {}
+
+    public static Operation operation(String name) { return operation(name, null); }
+
+    public static Operation operation(String name, String unit) {
+        return operations.computeIfAbsent(name, n -> {
+            Operation op = new Operation(n, unit);
+            if (jmx != null) register(op);
+            return op;
+        });
+    }
+
+    public static LongAdder counter(String name) { return counters.computeIfAbsent(name, n -> new LongAdder()); }
+
+    // idempotent; operations created later are registered as they appear
+    public static synchronized void registerMBeans() {
+        if (jmx != null) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName("edu.ccrm:type=Metrics");
+            if (!server.isRegistered(name)) server.registerMBean(new Registry(), name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics MBean", e);
+        }
+        jmx = server;
+        operations.values().forEach(Metrics::register);
+    }
+
+    private static void register(Operation op) {
+        try {
+            ObjectName name = new ObjectName("edu.ccrm:type=Operation,name=" + ObjectName.quote(op.getName()));
+            if (!jmx.isRegistered(name)) jmx.registerMBean(op, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register MBean for " + op.getName(), e);
+        }
+    }
+
+    public static void report(PrintWriter out) {
+        out.printf("%-18s %10s %8s %10s %10s %10s %10s %10s %14s%n",
+                "operation", "count", "errors", "mean us", "p50 us", "p99 us", "p99.9 us", "max us", "units/s");
+        for (Operation op : new TreeMap<>(operations).values()) {
+            if (op.getCount() == 0) continue;
+            long[] p = op.latency().percentiles(50, 99, 99.9);
+            out.printf(Locale.ROOT, "%-18s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %14s%n", op.getName(), op.getCount(),
+                    op.getErrors(), op.getMeanMicros(), p[0] / 1e3, p[1] / 1e3, p[2] / 1e3, op.getMaxMicros(),
+                    op.getUnit().isEmpty() ? "-" : String.format(Locale.ROOT, "%.0f %s", op.getUnitsPerSecond(), op.getUnit()));
+        }
+        Map<String, Long> c = counterValues();
+        if (!c.isEmpty()) {
+            out.println();
+            c.forEach((k, v) -> out.printf("%-40s %12d%n", k, v));
+        }
+        out.flush();
+    }
+
+    public static String report() {
+        StringWriter sw = new StringWriter();
+        report(new PrintWriter(sw));
+        return sw.toString();
+    }
+
+    // written to a temp file and moved into place, so a crash mid-dump never leaves half a report
+    public static Path dump(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, "# CCRM metrics " + LocalDateTime.now() + System.lineSeparator() + report(), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    public static void reset() {
+        operations.values().forEach(Operation::reset);
+        counters.values().forEach(LongAdder::reset);
+    }
+
+    private static Map<String, Long> counterValues() {
+        Map<String, Long> out = new TreeMap<>();
+        counters.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    private static final class Registry implements MetricsMXBean {
+        @Override public String getReport() { return report(); }
+        @Override public Map<String, Long> getCounters() { return counterValues(); }
+        @Override public void reset() { Metrics.reset(); }
+
+        @Override
+        public String dump(String path) {
+            try { return Metrics.dump(Path.of(path)).toAbsolutePath().toString(); }
+            catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+    }
+}
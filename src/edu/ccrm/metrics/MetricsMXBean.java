@@ -0,0 +1,11 @@
+package edu.ccrm.metrics;
+
+import java.util.Map;
+
+// JMX view of the whole registry, registered as edu.ccrm:type=Metrics
+public interface MetricsMXBean {
+    String getReport();
+    Map<String, Long> getCounters();
+    String dump(String path);
+    void reset();
+}
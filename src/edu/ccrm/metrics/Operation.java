@@ -0,0 +1,63 @@
+package edu.ccrm.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Count, errors and latency of one kind of service call. Callers take a start time and report it back:
+ *
+ *   long t = op.start();
+ *   boolean ok = false;
+ *   try { ...; ok = true; } finally { op.stop(t, ok); }
+ *
+ * Failed calls are timed too, so the histogram covers everything the caller waited for. Operations that
+ * move data (rows, bytes) also add units, and unitsPerSecond is units over the time spent in the calls.
+ */
+public final class Operation implements OperationMXBean {
+    private final String name;
+    private final String unit;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder units = new LongAdder();
+
+    Operation(String name, String unit) { this.name = name; this.unit = unit; }
+
+    public long start() { return System.nanoTime(); }
+
+    public void stop(long start, boolean ok) {
+        latency.record(System.nanoTime() - start);
+        if (!ok) errors.increment();
+    }
+
+    public void stop(long start, boolean ok, long units) {
+        stop(start, ok);
+        this.units.add(units);
+    }
+
+    // problems a call recovered from without failing, e.g. import rows that were rejected
+    public void addErrors(long n) { errors.add(n); }
+
+    public LatencyHistogram latency() { return latency; }
+
+    @Override public String getName() { return name; }
+    @Override public long getCount() { return latency.count(); }
+    @Override public long getErrors() { return errors.sum(); }
+    @Override public double getMeanMicros() { return latency.meanNanos() / 1e3; }
+    @Override public double getP50Micros() { return latency.percentiles(50)[0] / 1e3; }
+    @Override public double getP99Micros() { return latency.percentiles(99)[0] / 1e3; }
+    @Override public double getP999Micros() { return latency.percentiles(99.9)[0] / 1e3; }
+    @Override public double getMaxMicros() { return latency.maxNanos() / 1e3; }
+    @Override public String getUnit() { return unit == null ? "" : unit; }
+    @Override public long getUnits() { return units.sum(); }
+
+    @Override
+    public double getUnitsPerSecond() {
+        long nanos = latency.totalNanos();
+        return nanos == 0 ? 0 : units.sum() / (nanos / 1e9);
+    }
+
+    void reset() {
+        latency.reset();
+        errors.reset();
+        units.reset();
+    }
+}
@@ -0,0 +1,16 @@
+package edu.ccrm.metrics;
+
+// JMX view of one Operation, registered as edu.ccrm:type=Operation,name=<operation>
+public interface OperationMXBean {
+    String getName();
+    long getCount();
+    long getErrors();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+    String getUnit();
+    long getUnits();
+    double getUnitsPerSecond();
+}
@@ -0,0 +1,82 @@
+package edu.ccrm.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// manifest.csv written into every backup: a summary line, then one "sha256,size,modified,path" line per file
+public final class BackupManifest {
+    public static final String FILE_NAME = "manifest.csv";
+    private static final String SUMMARY_PREFIX = "# files=";
+
+    public record Entry(String sha256, long size, long modifiedMillis, String path) {}
+
+    private final List<Entry> entries;
+    private final long totalBytes;
+
+    public BackupManifest(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+        this.totalBytes = entries.stream().mapToLong(Entry::size).sum();
+    }
+
+    public List<Entry> getEntries() { return entries; }
+    public int getFileCount() { return entries.size(); }
+    public long getTotalBytes() { return totalBytes; }
+
+    public static boolean exists(Path backupDir) { return Files.exists(backupDir.resolve(FILE_NAME)); }
+
+    // the manifest is what makes a backup complete, so it is forced to disk before it takes its name
+    public void write(Path backupDir) throws IOException {
+        Path tmp = backupDir.resolve(FILE_NAME + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedWriter w = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(ch), StandardCharsets.UTF_8))) {
+            w.write(SUMMARY_PREFIX + entries.size() + ",bytes=" + totalBytes);
+            w.newLine();
+            for (Entry e : entries) {
+                // path goes last so commas inside file names need no escaping
+                w.write(e.sha256() + "," + e.size() + "," + e.modifiedMillis() + "," + e.path());
+                w.newLine();
+            }
+            w.flush();
+            ch.force(true);
+        }
+        Files.move(tmp, backupDir.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static BackupManifest read(Path backupDir) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader r = Files.newBufferedReader(backupDir.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] p = line.split(",", 4);
+                entries.add(new Entry(p[0], Long.parseLong(p[1]), Long.parseLong(p[2]), p[3]));
+            }
+        }
+        return new BackupManifest(entries);
+    }
+
+    // reads only the summary line: {files, bytes}
+    public static long[] readSummary(Path backupDir) throws IOException {
+        try (BufferedReader r = Files.newBufferedReader(backupDir.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+            String line = r.readLine();
+            if (line == null || !line.startsWith(SUMMARY_PREFIX)) {
+                BackupManifest m = read(backupDir);
+                return new long[]{m.getFileCount(), m.getTotalBytes()};
+            }
+            String[] p = line.substring(SUMMARY_PREFIX.length()).split(",bytes=");
+            return new long[]{Long.parseLong(p[0]), Long.parseLong(p[1])};
+        }
+    }
+}
@@ -1,46 +1,443 @@
 package edu.ccrm.service;
 
 import edu.ccrm.config.AppConfig;
+import edu.ccrm.exceptions.BackupVerificationException;
+import edu.ccrm.io.ParallelZipWriter;
+import edu.ccrm.metrics.Metrics;
 import edu.ccrm.util.RecursionUtil;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
+// Backups are content-addressed: each distinct file body is stored once under backups/.blobs, and every
+// backup folder holds hard links to those blobs plus a manifest recording paths, sizes and hashes.
+// Files are hashed, copied and verified in parallel on a pool of ccrm.backup.threads. A new file is stored by
+// one read/hash/write loop, so it is read only once; restores copy channel to channel with transferTo.
+// Backups are named backup_<yyyyMMdd_HHmmss>, with _02, _03, ... appended when that second is already taken.
 public class BackupService {
+    private static final String BLOB_FOLDER = ".blobs";
     private final AppConfig cfg = AppConfig.getInstance();
 
+    // both kinds of backup are timed in Metrics.BACKUP, with the bytes of the files they cover as units
     public Path createBackup() throws IOException {
+        long t = Metrics.BACKUP.start();
+        long[] bytes = {-1};
+        try {
+            return createBackup(bytes);
+        } finally {
+            Metrics.BACKUP.stop(t, bytes[0] >= 0, Math.max(bytes[0], 0));
+        }
+    }
+
+    public record PruneResult(int backupsRemoved, long backupBytes, int blobsRemoved, long bytesFreed) {
+        @Override public String toString() {
+            return String.format("Prune[backups removed=%d (%d bytes), blobs removed=%d, bytes freed=%d]",
+                    backupsRemoved, backupBytes, blobsRemoved, bytesFreed);
+        }
+    }
+
+    // synchronized with prune, which may delete a blob this backup is about to link to
+    private synchronized Path createBackup(long[] bytes) throws IOException {
         Path export = cfg.getExportFolder();
         if (Files.notExists(export)) throw new NoSuchFileException("Export folder not found: " + export);
-        String ts = LocalDateTime.now().format(cfg.getTimestampFormatter());
-        Path target = cfg.getBackupFolder().resolve("backup_" + ts);
-        Files.createDirectories(target);
+        Path target = newBackupFolder(LocalDateTime.now().format(cfg.getTimestampFormatter()));
+
+        // files whose size and mtime match the last backup keep their hash instead of being re-read
+        Map<String, BackupManifest.Entry> previous = latestManifest()
+                .map(m -> m.getEntries().stream().collect(Collectors.toMap(BackupManifest.Entry::path, e -> e)))
+                .orElse(Map.of());
+        List<Path> files;
         try (var stream = Files.walk(export)) {
-            stream.filter(Files::isRegularFile).forEach(src -> {
-                try {
-                    Path rel = export.relativize(src);
-                    Path dest = target.resolve(rel);
-                    Files.createDirectories(dest.getParent());
-                    Files.copy(src, dest, StandardCopyOption.REPLACE_EXISTING);
-                } catch (IOException e) { throw new RuntimeException(e); }
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        List<Callable<BackupManifest.Entry>> tasks = new ArrayList<>(files.size());
+        for (Path src : files) {
+            tasks.add(() -> {
+                String rel = export.relativize(src).toString().replace('\\', '/');
+                long size = Files.size(src);
+                long modified = Files.getLastModifiedTime(src).toMillis();
+                BackupManifest.Entry prev = previous.get(rel);
+                Blob blob = prev != null && prev.size() == size && prev.modifiedMillis() == modified
+                        && Files.exists(blobPath(prev.sha256())) ? new Blob(prev.sha256(), size) : storeBlob(src);
+                Path dest = target.resolve(rel);
+                Files.createDirectories(dest.getParent());
+                link(blobPath(blob.sha256()), dest);
+                return new BackupManifest.Entry(blob.sha256(), blob.size(), modified, rel);
             });
         }
+        List<BackupManifest.Entry> entries = parallel(tasks);
+        new BackupManifest(entries).write(target);
+        bytes[0] = entries.stream().mapToLong(BackupManifest.Entry::size).sum();
+        return target;
+    }
+
+    // single-file alternative: the export folder streamed straight into backup_<ts>.zip, no staging copy
+    public Path createArchiveBackup() throws IOException {
+        long t = Metrics.BACKUP.start();
+        long[] bytes = {-1};
+        try {
+            return createArchiveBackup(bytes);
+        } finally {
+            Metrics.BACKUP.stop(t, bytes[0] >= 0, Math.max(bytes[0], 0));
+        }
+    }
+
+    private Path createArchiveBackup(long[] bytes) throws IOException {
+        Path export = cfg.getExportFolder();
+        if (Files.notExists(export)) throw new NoSuchFileException("Export folder not found: " + export);
+        Files.createDirectories(cfg.getBackupFolder());
+        String ts = LocalDateTime.now().format(cfg.getTimestampFormatter());
+        Path tmp = Files.createTempFile(cfg.getBackupFolder(), "backup_" + ts, ".zip.tmp");
+        Path target;
+        List<Path> files;
+        try (var stream = Files.walk(export)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        long total = 0;
+        try {
+            try (ParallelZipWriter zip = new ParallelZipWriter(tmp, Deflater.DEFAULT_COMPRESSION)) {
+                for (Path src : files) {
+                    total += Files.size(src);
+                    zip.addFile(src, export.relativize(src).toString().replace('\\', '/'));
+                }
+            }
+            // the name is picked only now, so an archive finished in the same second cannot be overwritten
+            synchronized (this) {
+                int n = 1;
+                while (taken(ts, n)) n++;
+                target = backupPath(ts, n, ".zip");
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            // a failed archive leaves nothing behind; after the move there is no tmp to delete
+            Files.deleteIfExists(tmp);
+        }
+        bytes[0] = total;
         return target;
     }
 
+    // createDirectory fails if the folder exists, so two backups in one second (or two processes) never share one
+    private Path newBackupFolder(String ts) throws IOException {
+        Files.createDirectories(cfg.getBackupFolder());
+        for (int n = 1; ; n++) {
+            if (taken(ts, n)) continue;
+            try {
+                return Files.createDirectory(backupPath(ts, n, ""));
+            } catch (FileAlreadyExistsException e) {
+                // taken by an earlier backup in the same second; try the next suffix
+            }
+        }
+    }
+
+    // folders and archives share one suffix sequence, so names sort in creation order across both kinds
+    private boolean taken(String ts, int n) {
+        return Files.exists(backupPath(ts, n, "")) || Files.exists(backupPath(ts, n, ".zip"));
+    }
+
+    // two-digit suffixes keep the names in creation order for prune and listBackups, which sort by name
+    private Path backupPath(String ts, int n, String ext) {
+        return cfg.getBackupFolder().resolve("backup_" + ts + (n == 1 ? "" : String.format("_%02d", n)) + ext);
+    }
+
+    // reads only the archive's central directory
+    public List<String> listArchive(Path archive) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            return zip.stream()
+                    .map(e -> String.format("%s  size=%d  compressed=%d", e.getName(), e.getSize(), e.getCompressedSize()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // inflates just the requested entry
+    public Path extractFromArchive(Path archive, String entryName, Path destFolder) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            ZipEntry entry = zip.getEntry(entryName);
+            if (entry == null) throw new NoSuchFileException(archive + "!" + entryName);
+            Path dest = destFolder.resolve(entryName).normalize();
+            if (!dest.startsWith(destFolder.normalize())) throw new IOException("Entry escapes destination: " + entryName);
+            Files.createDirectories(dest.getParent());
+            try (InputStream in = zip.getInputStream(entry)) {
+                Files.copy(in, dest, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return dest;
+        }
+    }
+
+    /*
+     * Copies a folder backup into destFolder, which must not exist yet. Every file is copied and then
+     * re-hashed against the manifest in parallel. The copies go to a staging folder next to destFolder,
+     * which is renamed into place only when every file matched; otherwise it is deleted and the per-file
+     * report comes back inside a BackupVerificationException.
+     */
+    public RestoreReport restore(Path backup, Path destFolder) throws IOException {
+        if (!BackupManifest.exists(backup)) throw new NoSuchFileException("Not a folder backup with a manifest: " + backup);
+        if (Files.exists(destFolder)) throw new FileAlreadyExistsException(destFolder.toString());
+        Path dest = destFolder.toAbsolutePath().normalize();
+        Files.createDirectories(dest.getParent());
+        Path staging = Files.createTempDirectory(dest.getParent(), dest.getFileName() + ".restoring");
+        boolean ok = false;
+        try {
+            List<Callable<RestoreReport.FileResult>> tasks = new ArrayList<>();
+            for (BackupManifest.Entry e : BackupManifest.read(backup).getEntries()) tasks.add(() -> restoreFile(backup, e, staging));
+            RestoreReport report = new RestoreReport(backup, destFolder, parallel(tasks));
+            if (!report.isOk()) throw new BackupVerificationException(report);
+            Files.move(staging, dest, StandardCopyOption.ATOMIC_MOVE);
+            ok = true;
+            return report;
+        } finally {
+            if (!ok) deleteTree(staging);
+        }
+    }
+
+    private RestoreReport.FileResult restoreFile(Path backup, BackupManifest.Entry e, Path staging) {
+        Path dest = staging.resolve(e.path()).normalize();
+        if (!dest.startsWith(staging)) return new RestoreReport.FileResult(e.path(), e.size(), RestoreReport.Status.FAILED, "path escapes destination");
+        // the backup's own link first; the blob holds the same bytes if the link was removed
+        Path src = backup.resolve(e.path());
+        if (!Files.isRegularFile(src)) src = blobPath(e.sha256());
+        if (!Files.isRegularFile(src)) return new RestoreReport.FileResult(e.path(), e.size(), RestoreReport.Status.MISSING, null);
+        try {
+            Files.createDirectories(dest.getParent());
+            copy(src, dest);
+            long size = Files.size(dest);
+            if (size != e.size())
+                return new RestoreReport.FileResult(e.path(), e.size(), RestoreReport.Status.SIZE_MISMATCH, size + " bytes, expected " + e.size());
+            String hash = sha256(dest);
+            if (!hash.equals(e.sha256()))
+                return new RestoreReport.FileResult(e.path(), e.size(), RestoreReport.Status.CHECKSUM_MISMATCH, "sha256 " + hash + ", expected " + e.sha256());
+            Files.setLastModifiedTime(dest, FileTime.fromMillis(e.modifiedMillis()));
+            return new RestoreReport.FileResult(e.path(), e.size(), RestoreReport.Status.OK, null);
+        } catch (IOException x) {
+            return new RestoreReport.FileResult(e.path(), e.size(), RestoreReport.Status.FAILED, x.toString());
+        }
+    }
+
+    /*
+     * Keeps the newest `keep` backups (folders and archives alike, by timestamp) and deletes the rest, along
+     * with the blobs no remaining manifest refers to. Sizes come from the manifests and their summary lines
+     * instead of walking each backup; only folders from before manifests existed are still walked.
+     */
+    public synchronized PruneResult prune(int keep) throws IOException {
+        if (keep < 1) throw new IllegalArgumentException("keep must be at least 1: " + keep);
+        List<Path> all = new ArrayList<>(backupFolders());
+        all.addAll(archives());
+        all.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        if (all.size() <= keep) return new PruneResult(0, 0, 0, 0);
+        List<Path> doomed = all.subList(0, all.size() - keep), kept = all.subList(all.size() - keep, all.size());
+
+        Set<String> referenced = new HashSet<>();
+        for (Path p : kept) {
+            if (BackupManifest.exists(p)) for (BackupManifest.Entry e : BackupManifest.read(p).getEntries()) referenced.add(e.sha256());
+        }
+        Map<String, Long> unreferenced = new HashMap<>();
+        long backupBytes = 0;
+        for (Path p : doomed) {
+            if (BackupManifest.exists(p)) {
+                BackupManifest m = BackupManifest.read(p);
+                backupBytes += m.getTotalBytes();
+                for (BackupManifest.Entry e : m.getEntries()) if (!referenced.contains(e.sha256())) unreferenced.put(e.sha256(), e.size());
+            } else {
+                backupBytes += getBackupSize(p);
+            }
+        }
+        // the backups go first, so a crash in between leaves orphaned blobs rather than backups missing theirs
+        for (Path p : doomed) deleteTree(p);
+        int blobs = 0;
+        long freed = 0;
+        for (Map.Entry<String, Long> e : unreferenced.entrySet()) {
+            if (Files.deleteIfExists(blobPath(e.getKey()))) { blobs++; freed += e.getValue(); }
+        }
+        return new PruneResult(doomed.size(), backupBytes, blobs, freed);
+    }
+
+    // logical size of the backup, taken from its manifest; pre-manifest backups are still walked
     public long getBackupSize(Path backupFolder) throws IOException {
+        if (Files.isRegularFile(backupFolder)) return Files.size(backupFolder);
+        if (BackupManifest.exists(backupFolder)) return BackupManifest.readSummary(backupFolder)[1];
         return RecursionUtil.computeDirectorySize(backupFolder);
     }
 
+    // bytes actually on disk for all backups, since unchanged files are shared between them
+    public long getBlobStoreSize() throws IOException {
+        return RecursionUtil.computeDirectorySize(cfg.getBackupFolder().resolve(BLOB_FOLDER));
+    }
+
     public void listBackups() throws IOException {
         Path b = cfg.getBackupFolder();
         if (Files.notExists(b)) {
             System.out.println("No backups folder exists yet.");
             return;
         }
+        List<Path> all = new ArrayList<>(backupFolders());
+        all.addAll(archives());
+        all.sort(Comparator.comparing(Path::getFileName));
+        for (Path p : all) {
+            if (Files.isRegularFile(p)) {
+                System.out.println(p.getFileName() + "  archive bytes=" + Files.size(p));
+            } else if (BackupManifest.exists(p)) {
+                long[] summary = BackupManifest.readSummary(p);
+                System.out.println(p.getFileName() + "  files=" + summary[0] + "  bytes=" + summary[1]);
+            } else {
+                System.out.println(p.getFileName());
+            }
+        }
+    }
+
+    List<Path> backupFolders() throws IOException {
+        Path b = cfg.getBackupFolder();
+        if (Files.notExists(b)) return List.of();
         try (var s = Files.list(b)) {
-            s.forEach(p -> System.out.println(p.getFileName()));
+            return s.filter(Files::isDirectory)
+                    .filter(p -> !p.getFileName().toString().equals(BLOB_FOLDER))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    List<Path> archives() throws IOException {
+        Path b = cfg.getBackupFolder();
+        if (Files.notExists(b)) return List.of();
+        try (var s = Files.list(b)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(".zip")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Optional<BackupManifest> latestManifest() throws IOException {
+        List<Path> folders = backupFolders();
+        for (int i = folders.size() - 1; i >= 0; i--) {
+            if (BackupManifest.exists(folders.get(i))) return Optional.of(BackupManifest.read(folders.get(i)));
+        }
+        return Optional.empty();
+    }
+
+    Path blobPath(String hash) {
+        return cfg.getBackupFolder().resolve(BLOB_FOLDER).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private record Blob(String sha256, long size) {}
+
+    /*
+     * Copies src into the blob store, hashing the bytes as they are written, so the blob's name always
+     * matches what it holds even if src changes meanwhile. The copy lands in a temp file and is renamed to
+     * its hash, or dropped when that blob is already stored.
+     */
+    private Blob storeBlob(Path src) throws IOException {
+        Path blobs = cfg.getBackupFolder().resolve(BLOB_FOLDER);
+        Files.createDirectories(blobs);
+        Path tmp = Files.createTempFile(blobs, "incoming", ".tmp");
+        try {
+            MessageDigest md = sha256();
+            long size = 0;
+            try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024);
+                while (in.read(buf) != -1) {
+                    buf.flip();
+                    md.update(buf.duplicate());
+                    size += buf.remaining();
+                    while (buf.hasRemaining()) out.write(buf);
+                    buf.clear();
+                }
+                out.force(true);
+            }
+            String hash = HexFormat.of().formatHex(md.digest());
+            Path blob = blobPath(hash);
+            if (Files.notExists(blob)) {
+                Files.createDirectories(blob.getParent());
+                // two files with the same content may arrive at once; either copy is the right one
+                Files.move(tmp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new Blob(hash, size);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // channel to channel, so the kernel moves the bytes; forced so a finished backup survives a crash
+    static void copy(Path src, Path dest) throws IOException {
+        try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size(), pos = 0;
+            while (pos < size) {
+                long n = in.transferTo(pos, size - pos, out);
+                if (n <= 0) break; // the source shrank while being copied
+                pos += n;
+            }
+            out.force(true);
+        }
+    }
+
+    // runs the tasks on a pool of at most ccrm.backup.threads and returns their results in task order
+    private <T> List<T> parallel(List<Callable<T>> tasks) throws IOException {
+        int threads = Math.max(1, Math.min(cfg.getBackupThreads(), tasks.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ccrm-backup");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<T> out = new ArrayList<>(tasks.size());
+            for (Future<T> f : pool.invokeAll(tasks)) out.add(f.get());
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while copying backup files");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (Files.notExists(root)) return;
+        try (var s = Files.walk(root)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) Files.deleteIfExists(p);
+        }
+    }
+
+    private static void link(Path blob, Path dest) throws IOException {
+        Files.deleteIfExists(dest);
+        try {
+            Files.createLink(dest, blob);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // file systems without hard links get a plain copy; the manifest stays the same
+            Files.copy(blob, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try { return MessageDigest.getInstance("SHA-256"); }
+        catch (NoSuchAlgorithmException e) { throw new IllegalStateException(e); }
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest md = sha256();
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) != -1) md.update(buf, 0, n);
         }
+        return HexFormat.of().formatHex(md.digest());
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package edu.ccrm.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Per-row outcome of EnrollmentService.enrollAll, in the same order as the submitted requests.
+public class BatchEnrollmentResult {
+    public enum Outcome {
+        ENROLLED,
+        DUPLICATE_ID,          // enrollment id already in use
+        ALREADY_ENROLLED,      // same student, course and semester
+        CREDIT_LIMIT,          // would exceed the per-semester credit limit
+        ROLLED_BACK            // valid on its own, but the student's group failed in ALL_OR_NOTHING mode
+    }
+
+    private final Outcome[] outcomes;
+
+    BatchEnrollmentResult(Outcome[] outcomes) { this.outcomes = outcomes; }
+
+    public int size() { return outcomes.length; }
+    public Outcome getOutcome(int row) { return outcomes[row]; }
+
+    public long count(Outcome outcome) {
+        long n = 0;
+        for (Outcome o : outcomes) if (o == outcome) n++;
+        return n;
+    }
+
+    public Map<Outcome, Long> summary() {
+        Map<Outcome, Long> m = new EnumMap<>(Outcome.class);
+        for (Outcome o : outcomes) m.merge(o, 1L, Long::sum);
+        return m;
+    }
+
+    @Override
+    public String toString() { return "BatchEnrollment[rows=" + outcomes.length + ", " + summary() + "]"; }
+}
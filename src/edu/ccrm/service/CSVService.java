@@ -1,20 +1,25 @@
 package edu.ccrm.service;
 
 import edu.ccrm.config.AppConfig;
-import edu.ccrm.domain.Course;
-import edu.ccrm.domain.Semester;
-import edu.ccrm.domain.Student;
+import edu.ccrm.io.CSVExporter;
+import edu.ccrm.io.CSVImporter;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.metrics.Metrics;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class CSVService {
     private final AppConfig cfg = AppConfig.getInstance();
+    private static final String STUDENT_HEADER = "id,name,email,dob,regNo,program";
+    private static final String COURSE_HEADER = "code,title,credits,department,semester,instructorId";
+    private final CSVImporter importer = new CSVImporter();
+    private final CSVExporter exporter = new CSVExporter();
 
     // Create sample CSVs if missing
     public void createSampleDataIfMissing() throws IOException {
@@ -42,85 +47,106 @@ public class CSVService {
         }
     }
 
-    // imports students
-    public void importStudents(Path csvPath, StudentService studentService) throws IOException {
-        if (Files.notExists(csvPath)) throw new NoSuchFileException(csvPath.toString());
-        try (Stream<String> lines = Files.lines(csvPath, StandardCharsets.UTF_8)) {
-            List<String> data = lines.skip(1).collect(Collectors.toList());
-            for (String line : data) {
-                if (line.trim().isEmpty()) continue;
-                String[] parts = line.split(",");
-                if (parts.length < 6) continue;
-                Student s = new Student(parts[0].trim(), parts[1].trim(), parts[2].trim(),
-                        LocalDate.parse(parts[3].trim()), parts[4].trim(), parts[5].trim());
-                try { studentService.addStudent(s); } catch (Exception ex) { /* skip duplicates */ }
-            }
+    // imports students; rows that cannot be imported are listed in the report instead of being dropped silently
+    public ImportReport importStudents(Path csvPath, StudentService studentService) throws IOException {
+        return importStudents(csvPath, studentService, CSVImporter.Mode.INSERT);
+    }
+
+    // MERGE also updates known students whose fields changed, for re-importing a full feed
+    public ImportReport importStudents(Path csvPath, StudentService studentService, CSVImporter.Mode mode) throws IOException {
+        long t = Metrics.IMPORT.start();
+        ImportReport report = null;
+        try {
+            report = isLarge(csvPath) ? importer.importStudentsParallel(csvPath, studentService, mode)
+                    : importer.importStudents(csvPath, studentService, mode);
+            return report;
+        } finally {
+            recordImport(t, report);
         }
     }
 
     // imports courses
-    public void importCourses(Path csvPath, CourseService courseService) throws IOException {
-        if (Files.notExists(csvPath)) throw new NoSuchFileException(csvPath.toString());
-        try (Stream<String> lines = Files.lines(csvPath, StandardCharsets.UTF_8)) {
-            List<String> data = lines.skip(1).collect(Collectors.toList());
-            for (String line : data) {
-                if (line.trim().isEmpty()) continue;
-                String[] p = line.split(",");
-                if (p.length < 6) continue;
-                Semester sem = null;
-                String semStr = p[4].trim();
-                try { if (!semStr.isEmpty()) sem = Semester.valueOf(semStr.toUpperCase()); }
-                catch (Exception ignored) {}
-                Course c = new Course.Builder()
-                        .courseCode(p[0].trim())
-                        .title(p[1].trim())
-                        .creditHours(Integer.parseInt(p[2].trim()))
-                        .department(p[3].trim())
-                        .semester(sem)
-                        .instructorId(p[5].trim())
-                        .build();
-                try { courseService.addCourse(c); } catch (Exception ex) { /* skip duplicates */ }
-            }
+    public ImportReport importCourses(Path csvPath, CourseService courseService) throws IOException {
+        return importCourses(csvPath, courseService, CSVImporter.Mode.INSERT);
+    }
+
+    public ImportReport importCourses(Path csvPath, CourseService courseService, CSVImporter.Mode mode) throws IOException {
+        long t = Metrics.IMPORT.start();
+        ImportReport report = null;
+        try {
+            report = isLarge(csvPath) ? importer.importCoursesParallel(csvPath, courseService, mode)
+                    : importer.importCourses(csvPath, courseService, mode);
+            return report;
+        } finally {
+            recordImport(t, report);
         }
     }
 
+    // rejected rows count as errors of the import: the exceptions behind them are caught row by row
+    private static void recordImport(long start, ImportReport report) {
+        if (report == null) { Metrics.IMPORT.stop(start, false); return; }
+        Metrics.IMPORT.stop(start, true, report.getRowsRead());
+        Metrics.IMPORT.addErrors(report.getRejected());
+    }
+
+    public ImportReport readEnrollmentRequests(Path csvPath, List<EnrollmentRequest> out) throws IOException {
+        return importer.readEnrollmentRequests(csvPath, out);
+    }
+
+    // big files are worth spreading over all cores; small ones are faster read straight through
+    private boolean isLarge(Path csvPath) throws IOException {
+        return Files.exists(csvPath) && Files.size(csvPath) >= cfg.getParallelImportThresholdBytes();
+    }
+
     // export students
     public Path exportStudents(StudentService ss) throws IOException {
-        Path out = cfg.getExportFolder();
-        if (Files.notExists(out)) Files.createDirectories(out);
-        Path file = out.resolve("students_export.csv");
-        String header = "id,name,email,dob,regNo,program";
-        List<String> lines = ss.getAllStudents().stream()
-                .map(s -> String.join(",",
-                        s.getId(),
-                        s.getName(),
-                        s.getEmail(),
-                        s.getDateOfBirth().toString(),
-                        s.getRegNo(),
-                        s.getProgram()))
-                .collect(Collectors.toList());
-        lines.add(0, header);
-        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        Path file = cfg.getExportFolder().resolve("students_export.csv");
+        long t = Metrics.EXPORT.start();
+        long rows = -1;
+        try {
+            rows = exporter.write(file, STUDENT_HEADER, ss.stream().iterator(), (s, line) -> line
+                    .field(s.getId())
+                    .field(s.getName())
+                    .field(s.getEmail())
+                    .field(s.getDateOfBirth())
+                    .field(s.getRegNo())
+                    .field(s.getProgram()));
+        } finally {
+            Metrics.EXPORT.stop(t, rows >= 0, Math.max(rows, 0));
+        }
         return file;
     }
 
     // export courses
     public Path exportCourses(CourseService cs) throws IOException {
-        Path out = cfg.getExportFolder();
-        if (Files.notExists(out)) Files.createDirectories(out);
-        Path file = out.resolve("courses_export.csv");
-        String header = "code,title,credits,department,semester,instructorId";
-        List<String> lines = cs.getAllCourses().stream()
-                .map(c -> String.join(",",
-                        c.getCourseCode(),
-                        c.getTitle(),
-                        String.valueOf(c.getCreditHours()),
-                        c.getDepartment() == null ? "" : c.getDepartment(),
-                        c.getSemester() == null ? "" : c.getSemester().name(),
-                        c.getInstructorId() == null ? "" : c.getInstructorId()))
-                .collect(Collectors.toList());
-        lines.add(0, header);
-        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        Path file = cfg.getExportFolder().resolve("courses_export.csv");
+        long t = Metrics.EXPORT.start();
+        long rows = -1;
+        try {
+            rows = exporter.write(file, COURSE_HEADER, cs.stream().iterator(), (c, line) -> line
+                    .field(c.getCourseCode())
+                    .field(c.getTitle())
+                    .field(c.getCreditHours())
+                    .field(c.getDepartment())
+                    .field(c.getSemester() == null ? null : c.getSemester().name())
+                    .field(c.getInstructorId()));
+        } finally {
+            Metrics.EXPORT.stop(t, rows >= 0, Math.max(rows, 0));
+        }
         return file;
     }
+
+    // students and courses go to separate files, so both are written at the same time
+    public List<Path> exportAll(StudentService ss, CourseService cs) throws IOException {
+        CompletableFuture<Path> students = CompletableFuture.supplyAsync(() -> {
+            try { return exportStudents(ss); } catch (IOException e) { throw new UncheckedIOException(e); }
+        });
+        Path courses = exportCourses(cs);
+        try {
+            return List.of(students.join(), courses);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) throw u.getCause();
+            throw e;
+        }
+    }
 }
\ No newline at end of file
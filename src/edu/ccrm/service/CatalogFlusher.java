@@ -0,0 +1,187 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.BinarySnapshot;
+import edu.ccrm.io.CatalogChangeLog;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.metrics.Operation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * Persists student and course changes in the background instead of rewriting everything on exit.
+ *
+ * Every interval the ids the services marked dirty are drained and their current state (or their removal)
+ * is appended to the change log as one committed batch, so the cost is proportional to what changed. Once
+ * the log grows past a tenth of the catalog, a full flush rewrites the CSV exports and the binary snapshot
+ * and drops the log batches the snapshot now holds. Startup loads the snapshot and replays the log on top.
+ * Shutdown only has to append the last delta, and waits for it at most a configured time.
+ *
+ * Deltas are serialized on this object and full flushes on fullLock, so a delta never waits for a full
+ * rewrite to finish.
+ */
+public class CatalogFlusher implements Closeable {
+    private static final long MIN_FULL_FLUSH_ROWS = 10_000;
+    private static final Operation FLUSH = Metrics.operation("flush", "rows");
+    private static final Operation FLUSH_FULL = Metrics.operation("flush.full", "rows");
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final CSVService csvService;
+    private final Path snapshotFile;
+    private final CatalogChangeLog log;
+    private final long intervalMillis;
+    private final ScheduledExecutorService executor;
+    private final Object fullLock = new Object();
+    private volatile boolean fullFlushPending;
+
+    public CatalogFlusher(StudentService ss, CourseService cs, CSVService csv, Path snapshotFile,
+                          CatalogChangeLog log, long intervalMillis) {
+        this.studentService = ss;
+        this.courseService = cs;
+        this.csvService = csv;
+        this.snapshotFile = snapshotFile;
+        this.log = log;
+        this.intervalMillis = intervalMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ccrm-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // replays the change log onto a catalog just loaded from the snapshot; the replayed changes are not dirty
+    public ImportReport recover() throws IOException {
+        ImportReport report = log.apply(studentService, courseService);
+        studentService.clearDirty();
+        courseService.clearDirty();
+        return report;
+    }
+
+    // starts the periodic flush; fullFirst asks for exports and snapshot to be rewritten on the first run,
+    // for catalogs that did not come from the snapshot
+    public void start(boolean fullFirst) {
+        studentService.clearDirty();
+        courseService.clearDirty();
+        fullFlushPending = fullFirst;
+        executor.scheduleWithFixedDelay(this::backgroundFlush, fullFirst ? 0 : intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // appends the changes made since the last flush to the log; returns the rows written
+    public synchronized long flush() throws IOException {
+        long t = FLUSH.start();
+        long rows = 0;
+        boolean ok = false;
+        try {
+            Set<String> studentIds = studentService.drainDirty(), courseCodes = courseService.drainDirty();
+            List<Student> students = new ArrayList<>();
+            List<String> removedStudents = new ArrayList<>();
+            for (String id : studentIds) {
+                Optional<Student> s = studentService.findById(id);
+                if (s.isPresent()) students.add(s.get()); else removedStudents.add(id);
+            }
+            List<Course> courses = new ArrayList<>();
+            List<String> removedCourses = new ArrayList<>();
+            for (String code : courseCodes) {
+                Optional<Course> c = courseService.findByCode(code);
+                if (c.isPresent()) courses.add(c.get()); else removedCourses.add(code);
+            }
+            try {
+                rows = log.append(students, removedStudents, courses, removedCourses);
+            } catch (IOException e) {
+                // keep the changes for the next attempt
+                studentService.markDirty(studentIds);
+                courseService.markDirty(courseCodes);
+                throw e;
+            }
+            ok = true;
+            return rows;
+        } finally {
+            FLUSH.stop(t, ok, rows);
+        }
+    }
+
+    /*
+     * Rewrites the CSV exports and the snapshot from the live catalog. Pending changes are logged first and the
+     * log is rotated, so everything logged so far is covered by the snapshot about to be written; changes made
+     * meanwhile go to the new log. If the export or snapshot fails, the rotated log stays and nothing is lost.
+     */
+    public List<Path> flushAll() throws IOException {
+        synchronized (fullLock) {
+            long t = FLUSH_FULL.start();
+            boolean ok = false;
+            try {
+                synchronized (this) {
+                    flush();
+                    log.rotate();
+                }
+                List<Path> files = csvService.exportAll(studentService, courseService);
+                BinarySnapshot.write(snapshotFile, studentService, courseService);
+                log.dropRotated();
+                fullFlushPending = false;
+                ok = true;
+                return files;
+            } finally {
+                FLUSH_FULL.stop(t, ok, studentService.count() + courseService.count());
+            }
+        }
+    }
+
+    public long getLogRows() { return log.rows(); }
+
+    @Override
+    public void close() throws IOException {
+        close(Long.MAX_VALUE);
+    }
+
+    /*
+     * Flushes the last delta and stops; returns false if that did not finish within timeoutMillis. The delta
+     * runs on its own thread rather than being queued behind a full flush that may be in progress; whatever
+     * time is left is spent letting such a full flush finish.
+     */
+    public boolean close(long timeoutMillis) throws IOException {
+        long started = System.nanoTime();
+        executor.shutdown();
+        FutureTask<Long> last = new FutureTask<>(this::flush);
+        Thread t = new Thread(last, "ccrm-flusher-final");
+        t.setDaemon(true);
+        t.start();
+        try {
+            last.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            executor.awaitTermination(Math.max(0, timeoutMillis - (System.nanoTime() - started) / 1_000_000), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException("Final flush failed", e.getCause());
+        }
+    }
+
+    private void backgroundFlush() {
+        try {
+            flush();
+            long catalog = studentService.count() + courseService.count();
+            if (fullFlushPending || log.rows() >= Math.max(MIN_FULL_FLUSH_ROWS, catalog / 10)) flushAll();
+        } catch (IOException | RuntimeException e) {
+            // already counted as an error on flush or flush.full in Metrics; the next run retries
+        }
+    }
+}
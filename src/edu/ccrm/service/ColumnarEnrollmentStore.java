@@ -0,0 +1,365 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Struct-of-arrays engine for very large enrollment tables. A row is an index into parallel primitive
+ * columns; student ids and course codes become dense int surrogates, semester and grade are bytes and
+ * the date is a long. Each student's rows and each course's rows are threaded into doubly linked
+ * chains through int columns, so per-student checks and GPA are short loops over primitives with no
+ * boxing, iterators or per-row objects. Enrollment ids are found through an open-addressing table of
+ * row numbers. Freed rows go on a free list and are reused.
+ *
+ * One read/write lock guards the columns: writes are short, and the service's stripes already
+ * serialize check-then-act per student. Enrollment objects are built on demand and are detached.
+ */
+final class ColumnarEnrollmentStore implements EnrollmentStore {
+    private static final int NONE = -1;
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final Grade[] GRADES = Grade.values();
+    private static final double[] POINTS = new double[GRADES.length];
+    static { for (Grade g : GRADES) POINTS[g.ordinal()] = g.getPoints(); }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // row columns
+    private String[] enrollmentId = new String[1024];
+    private int[] student = new int[1024];
+    private int[] course = new int[1024];
+    private byte[] semester = new byte[1024];
+    private byte[] grade = new byte[1024];
+    private short[] credits = new short[1024];
+    private long[] millis = new long[1024];
+    private int[] nextOfStudent = new int[1024], prevOfStudent = new int[1024];
+    private int[] nextOfCourse = new int[1024], prevOfCourse = new int[1024];
+    private int rows, live, freeHead = NONE;
+
+    // surrogate dictionaries and chain heads
+    private final Map<String, Integer> studentIds = new HashMap<>();
+    private String[] studentNames = new String[256];
+    private int[] studentHead = new int[256];
+    private final Map<String, Integer> courseIds = new HashMap<>();
+    private String[] courseNames = new String[256];
+    private int[] courseHead = new int[256];
+
+    // enrollment id -> row + 1 (0 = empty), linear probing, power-of-two capacity
+    private int[] slots = new int[2048];
+
+    @Override
+    public Enrollment get(String id) {
+        lock.readLock().lock();
+        try {
+            int r = find(id);
+            return r == NONE ? null : materialize(r);
+        } finally { lock.readLock().unlock(); }
+    }
+
+    @Override
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try { return find(id) != NONE; } finally { lock.readLock().unlock(); }
+    }
+
+    @Override
+    public boolean add(Enrollment e, int creditHours) {
+        lock.writeLock().lock();
+        try {
+            if (find(e.getEnrollmentId()) != NONE) return false;
+            int r = allocateRow();
+            enrollmentId[r] = e.getEnrollmentId();
+            int s = studentId(e.getStudentId()), c = courseId(e.getCourseCode());
+            student[r] = s;
+            course[r] = c;
+            semester[r] = (byte) (e.getSemester() == null ? NONE : e.getSemester().ordinal());
+            grade[r] = (byte) (e.getGrade() == null ? NONE : e.getGrade().ordinal());
+            credits[r] = (short) creditHours;
+            millis[r] = e.getEnrollmentMillis();
+            prevOfStudent[r] = NONE;
+            nextOfStudent[r] = studentHead[s];
+            if (studentHead[s] != NONE) prevOfStudent[studentHead[s]] = r;
+            studentHead[s] = r;
+            prevOfCourse[r] = NONE;
+            nextOfCourse[r] = courseHead[c];
+            if (courseHead[c] != NONE) prevOfCourse[courseHead[c]] = r;
+            courseHead[c] = r;
+            insertSlot(r);
+            live++;
+            return true;
+        } finally { lock.writeLock().unlock(); }
+    }
+
+    @Override
+    public Enrollment remove(String id, String studentIdValue) {
+        lock.writeLock().lock();
+        try {
+            int r = find(id);
+            Integer s = studentIds.get(studentIdValue);
+            if (r == NONE || s == null || student[r] != s) return null;
+            Enrollment removed = materialize(r);
+            int c = course[r];
+            if (prevOfStudent[r] != NONE) nextOfStudent[prevOfStudent[r]] = nextOfStudent[r]; else studentHead[s] = nextOfStudent[r];
+            if (nextOfStudent[r] != NONE) prevOfStudent[nextOfStudent[r]] = prevOfStudent[r];
+            if (prevOfCourse[r] != NONE) nextOfCourse[prevOfCourse[r]] = nextOfCourse[r]; else courseHead[c] = nextOfCourse[r];
+            if (nextOfCourse[r] != NONE) prevOfCourse[nextOfCourse[r]] = prevOfCourse[r];
+            deleteSlot(id);
+            enrollmentId[r] = null;
+            student[r] = NONE;
+            nextOfStudent[r] = freeHead;
+            freeHead = r;
+            live--;
+            return removed;
+        } finally { lock.writeLock().unlock(); }
+    }
+
+    @Override
+    public void setGrade(String id, Grade g) {
+        lock.writeLock().lock();
+        try {
+            int r = find(id);
+            if (r != NONE) grade[r] = (byte) g.ordinal();
+        } finally { lock.writeLock().unlock(); }
+    }
+
+    @Override
+    public boolean hasCourse(String studentIdValue, Semester sem, String courseCode) {
+        lock.readLock().lock();
+        try {
+            Integer s = studentIds.get(studentIdValue), c = courseIds.get(courseCode);
+            if (s == null || c == null) return false;
+            byte sm = ordinal(sem);
+            for (int r = studentHead[s]; r != NONE; r = nextOfStudent[r]) {
+                if (course[r] == c && semester[r] == sm) return true;
+            }
+            return false;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    @Override
+    public int creditsAttempted(String studentIdValue, Semester sem) {
+        lock.readLock().lock();
+        try {
+            Integer s = studentIds.get(studentIdValue);
+            if (s == null) return 0;
+            byte sm = ordinal(sem);
+            int sum = 0;
+            for (int r = studentHead[s]; r != NONE; r = nextOfStudent[r]) {
+                if (semester[r] == sm) sum += credits[r];
+            }
+            return sum;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    @Override public double gpa(String studentIdValue) { return gpa(studentIdValue, null, false); }
+    @Override public double gpa(String studentIdValue, Semester sem) { return gpa(studentIdValue, sem, true); }
+
+    private double gpa(String studentIdValue, Semester sem, boolean byTerm) {
+        lock.readLock().lock();
+        try {
+            Integer s = studentIds.get(studentIdValue);
+            if (s == null) return 0.0;
+            byte sm = ordinal(sem);
+            double points = 0;
+            int graded = 0;
+            for (int r = studentHead[s]; r != NONE; r = nextOfStudent[r]) {
+                if (grade[r] == NONE || (byTerm && semester[r] != sm)) continue;
+                points += POINTS[grade[r]] * credits[r];
+                graded += credits[r];
+            }
+            return graded == 0 ? 0.0 : points / graded;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    // a single sequential sweep of the columns into arrays indexed by student surrogate; no hashing per row
+    @Override
+    public Map<String, Totals> gradedTotals(Semester sem) {
+        lock.readLock().lock();
+        try {
+            int students = studentIds.size();
+            double[] points = new double[students];
+            int[] graded = new int[students];
+            byte sm = ordinal(sem);
+            for (int r = 0; r < rows; r++) {
+                if (student[r] == NONE || grade[r] == NONE || (sem != null && semester[r] != sm)) continue;
+                points[student[r]] += POINTS[grade[r]] * credits[r];
+                graded[student[r]] += credits[r];
+            }
+            Map<String, Totals> out = new HashMap<>();
+            for (int s = 0; s < students; s++) {
+                if (graded[s] == 0) continue;
+                Totals t = new Totals();
+                t.qualityPoints = points[s];
+                t.gradedCredits = graded[s];
+                out.put(studentNames[s], t);
+            }
+            return out;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    @Override
+    public List<Enrollment> byStudent(String studentIdValue) {
+        lock.readLock().lock();
+        try {
+            Integer s = studentIds.get(studentIdValue);
+            List<Enrollment> out = new ArrayList<>();
+            if (s != null) for (int r = studentHead[s]; r != NONE; r = nextOfStudent[r]) out.add(materialize(r));
+            return out;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    @Override
+    public List<Enrollment> byStudentTerm(String studentIdValue, Semester sem) {
+        lock.readLock().lock();
+        try {
+            Integer s = studentIds.get(studentIdValue);
+            List<Enrollment> out = new ArrayList<>();
+            byte sm = ordinal(sem);
+            if (s != null) for (int r = studentHead[s]; r != NONE; r = nextOfStudent[r]) if (semester[r] == sm) out.add(materialize(r));
+            return out;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    @Override
+    public List<Enrollment> byCourse(String courseCode) {
+        lock.readLock().lock();
+        try {
+            Integer c = courseIds.get(courseCode);
+            List<Enrollment> out = new ArrayList<>();
+            if (c != null) for (int r = courseHead[c]; r != NONE; r = nextOfCourse[r]) out.add(materialize(r));
+            return out;
+        } finally { lock.readLock().unlock(); }
+    }
+
+    // point-in-time copy; rows are only turned into objects here, for callers that need every one of them
+    @Override
+    public Collection<Enrollment> all() {
+        lock.readLock().lock();
+        try {
+            List<Enrollment> out = new ArrayList<>(live);
+            for (int r = 0; r < rows; r++) if (student[r] != NONE) out.add(materialize(r));
+            return Collections.unmodifiableList(out);
+        } finally { lock.readLock().unlock(); }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try { return live; } finally { lock.readLock().unlock(); }
+    }
+
+    private Enrollment materialize(int r) {
+        Enrollment e = new Enrollment(enrollmentId[r], studentNames[student[r]], courseNames[course[r]],
+                semester[r] == NONE ? null : SEMESTERS[semester[r]], millis[r]);
+        if (grade[r] != NONE) e.setGrade(GRADES[grade[r]]);
+        return e;
+    }
+
+    private static byte ordinal(Semester sem) { return (byte) (sem == null ? NONE : sem.ordinal()); }
+
+    private int allocateRow() {
+        if (freeHead != NONE) {
+            int r = freeHead;
+            freeHead = nextOfStudent[r];
+            return r;
+        }
+        if (rows == student.length) {
+            int n = rows + (rows >> 1);
+            enrollmentId = Arrays.copyOf(enrollmentId, n);
+            student = Arrays.copyOf(student, n);
+            course = Arrays.copyOf(course, n);
+            semester = Arrays.copyOf(semester, n);
+            grade = Arrays.copyOf(grade, n);
+            credits = Arrays.copyOf(credits, n);
+            millis = Arrays.copyOf(millis, n);
+            nextOfStudent = Arrays.copyOf(nextOfStudent, n);
+            prevOfStudent = Arrays.copyOf(prevOfStudent, n);
+            nextOfCourse = Arrays.copyOf(nextOfCourse, n);
+            prevOfCourse = Arrays.copyOf(prevOfCourse, n);
+        }
+        return rows++;
+    }
+
+    private int studentId(String id) {
+        Integer s = studentIds.get(id);
+        if (s != null) return s;
+        int n = studentIds.size();
+        if (n == studentNames.length) {
+            studentNames = Arrays.copyOf(studentNames, n * 2);
+            studentHead = Arrays.copyOf(studentHead, n * 2);
+        }
+        studentNames[n] = id;
+        studentHead[n] = NONE;
+        studentIds.put(id, n);
+        return n;
+    }
+
+    private int courseId(String code) {
+        Integer c = courseIds.get(code);
+        if (c != null) return c;
+        int n = courseIds.size();
+        if (n == courseNames.length) {
+            courseNames = Arrays.copyOf(courseNames, n * 2);
+            courseHead = Arrays.copyOf(courseHead, n * 2);
+        }
+        courseNames[n] = code;
+        courseHead[n] = NONE;
+        courseIds.put(code, n);
+        return n;
+    }
+
+    /* ---------- enrollment id table ---------- */
+
+    private static int mix(int h) { h *= 0x9E3779B9; return h ^ (h >>> 16); }
+
+    private int find(String id) {
+        int mask = slots.length - 1;
+        for (int i = mix(id.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int v = slots[i];
+            if (v == 0) return NONE;
+            if (enrollmentId[v - 1].equals(id)) return v - 1;
+        }
+    }
+
+    private void insertSlot(int r) {
+        // kept at most half full so probe runs stay short
+        if (2 * (live + 1) > slots.length) rehash(slots.length * 2);
+        int mask = slots.length - 1;
+        int i = mix(enrollmentId[r].hashCode()) & mask;
+        while (slots[i] != 0) i = (i + 1) & mask;
+        slots[i] = r + 1;
+    }
+
+    // backward-shift deletion: no tombstones, so lookups never slow down after heavy churn
+    private void deleteSlot(String id) {
+        int mask = slots.length - 1;
+        int i = mix(id.hashCode()) & mask;
+        while (!enrollmentId[slots[i] - 1].equals(id)) i = (i + 1) & mask;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (slots[j] == 0) break;
+            int home = mix(enrollmentId[slots[j] - 1].hashCode()) & mask;
+            // move j back into the hole unless its home lies cyclically in (i, j]
+            if (i <= j ? (i < home && home <= j) : (i < home || home <= j)) continue;
+            slots[i] = slots[j];
+            i = j;
+        }
+        slots[i] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int v : old) {
+            if (v == 0) continue;
+            int i = mix(enrollmentId[v - 1].hashCode()) & mask;
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = v;
+        }
+    }
+}
@@ -1,32 +1,184 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.events.DomainEvent;
+import edu.ccrm.events.EventRing;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CourseService implements Closeable {
+    private final Repository<Course> courses;
+    // inverted indexes for the catalog filters, holding course codes so a paged catalog stays off the heap;
+    // department keys are case-folded, instructor ids match exactly
+    private final Map<String, Set<String>> byInstructor = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byDepartment = new ConcurrentHashMap<>();
+    private final Map<Semester, Set<String>> bySemester = new ConcurrentHashMap<>();
+    // adds and removes of a code are paired with their index updates; catalog writes are rare
+    private final Object writeLock = new Object();
+    // codes changed since the last drain, for CatalogFlusher
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // told the code of every course added, updated or removed, synchronously and after the change
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private volatile EventRing events;
+
+    public CourseService() { this(new MapRepository<>(Course::getCourseCode)); }
+    CourseService(Repository<Course> courses) {
+        this.courses = courses;
+        courses.stream().forEach(this::index);
+    }
+
+    // changes are published after they are applied; null = no events
+    public void setEvents(EventRing events) { this.events = events; }
+
+    // courses kept in a page file, with only the cacheEntries most recently used ones on the heap
+    public static CourseService paged(Path file, int cacheEntries) throws IOException {
+        return new CourseService(new PagedRepository<>(file, CODEC, "courses", cacheEntries));
+    }
 
-public class CourseService {
-    private final Map<String, Course> courses = new HashMap<>();
     public void addCourse(Course c) {
-        if (courses.containsKey(c.getCourseCode())) throw new IllegalArgumentException("Course exists: " + c.getCourseCode());
-        courses.put(c.getCourseCode(), c);
+        synchronized (writeLock) {
+            if (!courses.insert(c)) throw new IllegalArgumentException("Course exists: " + c.getCourseCode());
+            index(c);
+        }
+        dirty.add(c.getCourseCode());
+        changed(c.getCourseCode());
+        publish(DomainEvent.Type.COURSE_ADDED, c.getCourseCode());
+    }
+    // replaces a course in place, moving it between the filter indexes as needed
+    public void updateCourse(Course c) {
+        synchronized (writeLock) {
+            Course old = courses.get(c.getCourseCode());
+            if (old == null) throw new IllegalArgumentException("Course not found: " + c.getCourseCode());
+            courses.update(c);
+            unindex(old);
+            index(c);
+        }
+        dirty.add(c.getCourseCode());
+        changed(c.getCourseCode());
+        publish(DomainEvent.Type.COURSE_UPDATED, c.getCourseCode());
     }
     public Optional<Course> findByCode(String code) { return Optional.ofNullable(courses.get(code)); }
-    public List<Course> getAllCourses() { return new ArrayList<>(courses.values()); }
-    public void removeCourse(String code) { courses.remove(code); }
+    // copies every course; bulk readers should use stream()
+    public List<Course> getAllCourses() { return stream().collect(Collectors.toList()); }
+    // lazy, non-copying view for bulk readers such as exports
+    public Stream<Course> stream() { return courses.stream(); }
+    public long count() { return courses.size(); }
+    public void removeCourse(String code) {
+        synchronized (writeLock) {
+            Course c = courses.remove(code);
+            if (c == null) return;
+            unindex(c);
+        }
+        dirty.add(code);
+        changed(code);
+        publish(DomainEvent.Type.COURSE_REMOVED, code);
+    }
+    @Override public void close() throws IOException { courses.close(); }
+    Set<String> drainDirty() { return StudentService.drain(dirty); }
+    void clearDirty() { dirty.clear(); }
+    void markDirty(Collection<String> ids) { dirty.addAll(ids); }
+    void onChange(Consumer<String> listener) { listeners.add(listener); }
+
+    private void changed(String code) {
+        for (Consumer<String> l : listeners) l.accept(code);
+    }
+
+    private void publish(DomainEvent.Type type, String code) {
+        EventRing e = events;
+        if (e != null) e.publish(type, code);
+    }
     public List<Course> filterByInstructor(String instructorId) {
-        return courses.values().stream()
-                .filter(c -> instructorId != null && instructorId.equals(c.getInstructorId()))
-                .collect(Collectors.toList());
+        return instructorId == null ? new ArrayList<>() : copy(byInstructor.get(instructorId));
     }
     public List<Course> filterByDepartment(String department) {
-        return courses.values().stream()
-                .filter(c -> department != null && department.equalsIgnoreCase(c.getDepartment()))
-                .collect(Collectors.toList());
+        return department == null ? new ArrayList<>() : copy(byDepartment.get(fold(department)));
     }
     public List<Course> filterBySemester(String semesterName) {
-        return courses.values().stream()
-                .filter(c -> c.getSemester() != null && c.getSemester().name().equalsIgnoreCase(semesterName))
-                .collect(Collectors.toList());
+        Semester sem = parseSemester(semesterName);
+        return sem == null ? new ArrayList<>() : copy(bySemester.get(sem));
     }
-    public void displayAllCourses() { courses.values().forEach(System.out::println); }
+    // compound filter; a null criterion is unconstrained. Walks the smallest matching index set and
+    // probes the others, so "CS in FALL" costs the size of the smaller of the two sets.
+    public List<Course> filter(String instructorId, String department, String semesterName) {
+        List<Set<String>> sets = new ArrayList<>(3);
+        if (instructorId != null) sets.add(byInstructor.getOrDefault(instructorId, Set.of()));
+        if (department != null) sets.add(byDepartment.getOrDefault(fold(department), Set.of()));
+        if (semesterName != null) {
+            Semester sem = parseSemester(semesterName);
+            sets.add(sem == null ? Set.of() : bySemester.getOrDefault(sem, Set.of()));
+        }
+        if (sets.isEmpty()) return getAllCourses();
+        sets.sort(Comparator.comparingInt(Set::size));
+        List<Course> out = new ArrayList<>();
+        Set<String> smallest = sets.get(0);
+        outer:
+        for (String code : smallest) {
+            for (int i = 1; i < sets.size(); i++) if (!sets.get(i).contains(code)) continue outer;
+            addIfPresent(code, out);
+        }
+        return out;
+    }
+    public void displayAllCourses() { stream().forEach(System.out::println); }
+
+    private void index(Course c) {
+        String code = c.getCourseCode();
+        if (c.getInstructorId() != null) byInstructor.computeIfAbsent(c.getInstructorId(), k -> ConcurrentHashMap.newKeySet()).add(code);
+        if (c.getDepartment() != null) byDepartment.computeIfAbsent(fold(c.getDepartment()), k -> ConcurrentHashMap.newKeySet()).add(code);
+        if (c.getSemester() != null) bySemester.computeIfAbsent(c.getSemester(), k -> ConcurrentHashMap.newKeySet()).add(code);
+    }
+    private void unindex(Course c) {
+        if (c.getInstructorId() != null) removeFrom(byInstructor, c.getInstructorId(), c);
+        if (c.getDepartment() != null) removeFrom(byDepartment, fold(c.getDepartment()), c);
+        if (c.getSemester() != null) removeFrom(bySemester, c.getSemester(), c);
+    }
+    private static <K> void removeFrom(Map<K, Set<String>> index, K key, Course c) {
+        index.computeIfPresent(key, (k, set) -> { set.remove(c.getCourseCode()); return set.isEmpty() ? null : set; });
+    }
+    private List<Course> copy(Set<String> codes) {
+        List<Course> out = new ArrayList<>(codes == null ? 0 : codes.size());
+        if (codes != null) for (String code : codes) addIfPresent(code, out);
+        return out;
+    }
+    // a code removed between the index read and this lookup is skipped
+    private void addIfPresent(String code, List<Course> out) {
+        Course c = courses.get(code);
+        if (c != null) out.add(c);
+    }
+    private static String fold(String s) { return s.toLowerCase(Locale.ROOT); }
+    private static Semester parseSemester(String name) {
+        if (name == null) return null;
+        for (Semester s : Semester.values()) if (s.name().equalsIgnoreCase(name)) return s;
+        return null;
+    }
+
+    private static final PagedRepository.Codec<Course> CODEC = new PagedRepository.Codec<>() {
+        @Override public String key(Course c) { return c.getCourseCode(); }
+
+        @Override
+        public void write(Course c, DataOutput out) throws IOException {
+            PagedRepository.writeString(out, c.getTitle());
+            out.writeInt(c.getCreditHours());
+            PagedRepository.writeString(out, c.getDepartment());
+            out.writeByte(c.getSemester() == null ? -1 : c.getSemester().ordinal());
+            PagedRepository.writeString(out, c.getInstructorId());
+        }
+
+        @Override
+        public Course read(String code, DataInput in) throws IOException {
+            Course.Builder b = new Course.Builder().courseCode(code).title(PagedRepository.readString(in)).creditHours(in.readInt())
+                    .department(PagedRepository.readString(in));
+            int sem = in.readByte();
+            return b.semester(sem < 0 ? null : Semester.values()[sem]).instructorId(PagedRepository.readString(in)).build();
+        }
+    };
 }
\ No newline at end of file
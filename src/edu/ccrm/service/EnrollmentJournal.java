@@ -0,0 +1,354 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/*
+ * Write-ahead log for enrollments and grades.
+ *
+ * Every change is framed as [length][payload][crc32] and appended to an in-memory batch; whoever
+ * flushes next writes the whole batch with one write + fsync (group commit). A compacted snapshot
+ * replaces the log from time to time: the live log is rotated to enrollments.wal.old, the snapshot
+ * is written to a temp file and renamed into place, and only then is the old log deleted. Recovery
+ * loads the snapshot and replays wal.old and wal on top; replay is idempotent, so a snapshot that
+ * already contains some of those changes is fine.
+ *
+ * A batch whose write or fsync fails goes back in front of the pending records and the partial write is cut
+ * off the log, so the next flush retries it. If even that cut fails, the log can no longer be trusted and
+ * the journal rejects every further change.
+ */
+public class EnrollmentJournal implements Closeable {
+    public enum Durability {
+        PER_OP,  // each change is fsynced before the call returns; concurrent callers share an fsync
+        BATCHED  // calls return once buffered; a background flush fsyncs every batch interval
+    }
+
+    private static final byte ENROLL = 'E', UNENROLL = 'U', MARKS = 'M';
+    private static final byte NO_GRADE = -1;
+
+    private final Path snapshotFile;
+    private final Path walFile;
+    private final Path oldWalFile;
+    private final Durability durability;
+    private final long snapshotEveryOps;
+    private final ScheduledExecutorService flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushDone = lock.newCondition();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private FileChannel wal;
+    private long appendedSeq, durableSeq, opsSinceSnapshot;
+    private boolean flushing;
+    private IOException failure;
+    private EnrollmentService attached;
+
+    public EnrollmentJournal(Path folder, Durability durability, long batchMillis, long snapshotEveryOps) throws IOException {
+        Files.createDirectories(folder);
+        this.snapshotFile = folder.resolve("enrollments.snapshot");
+        this.walFile = folder.resolve("enrollments.wal");
+        this.oldWalFile = folder.resolve("enrollments.wal.old");
+        this.durability = durability;
+        this.snapshotEveryOps = snapshotEveryOps;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ccrm-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::backgroundFlush, batchMillis, batchMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Durability getDurability() { return durability; }
+
+    // loads snapshot + log tail into the service and starts journaling its changes; returns the records replayed
+    public long recover(EnrollmentService service) throws IOException {
+        long replayed = 0;
+        replayed += replay(snapshotFile, service, false);
+        replayed += replay(oldWalFile, service, false);
+        replayed += replay(walFile, service, true);
+        wal = FileChannel.open(walFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        opsSinceSnapshot = replayed;
+        attached = service;
+        service.setJournal(this);
+        return replayed;
+    }
+
+    long logEnroll(Enrollment e) {
+        lock.lock();
+        try {
+            record.reset();
+            recordOut.writeByte(ENROLL);
+            writeEnrollment(e);
+            return appendRecord();
+        } catch (IOException ex) { throw new UncheckedIOException(ex); }
+        finally { lock.unlock(); }
+    }
+
+    long logUnenroll(String enrollmentId) {
+        lock.lock();
+        try {
+            record.reset();
+            recordOut.writeByte(UNENROLL);
+            recordOut.writeUTF(enrollmentId);
+            return appendRecord();
+        } catch (IOException ex) { throw new UncheckedIOException(ex); }
+        finally { lock.unlock(); }
+    }
+
+    long logMarks(String enrollmentId, Grade grade) {
+        lock.lock();
+        try {
+            record.reset();
+            recordOut.writeByte(MARKS);
+            recordOut.writeUTF(enrollmentId);
+            recordOut.writeByte(grade.ordinal());
+            return appendRecord();
+        } catch (IOException ex) { throw new UncheckedIOException(ex); }
+        finally { lock.unlock(); }
+    }
+
+    // called by the service after it has released its own locks
+    void commit(long seq) {
+        if (durability != Durability.PER_OP) return;
+        try { awaitDurable(seq); } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    public void flush() throws IOException {
+        long target;
+        lock.lock();
+        try { target = appendedSeq; } finally { lock.unlock(); }
+        awaitDurable(target);
+    }
+
+    // compacts the log: rotate, write the current state as a snapshot, then drop the rotated log
+    public synchronized void snapshot() throws IOException {
+        EnrollmentService service = attached;
+        if (service == null) return;
+        lock.lock();
+        try {
+            while (flushing) flushDone.awaitUninterruptibly();
+            writeBatch();
+            wal.close();
+            // an older rotation that never completed still belongs in front of the current log
+            if (Files.exists(oldWalFile)) appendFile(walFile, oldWalFile);
+            else Files.move(walFile, oldWalFile, StandardCopyOption.ATOMIC_MOVE);
+            wal = FileChannel.open(walFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            opsSinceSnapshot = 0;
+        } finally { lock.unlock(); }
+
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 64 * 1024))) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(128);
+            DataOutputStream bufOut = new DataOutputStream(buf);
+            CRC32 snapCrc = new CRC32();
+            for (Enrollment e : service.enrollmentView()) {
+                buf.reset();
+                bufOut.writeByte(ENROLL);
+                writeEnrollment(bufOut, e);
+                frame(out, buf, snapCrc);
+            }
+            out.flush();
+            ch.force(true);
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(oldWalFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            // a background flush or snapshot still running must finish before the final one starts
+            flusher.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the journal flusher");
+        }
+        if (wal == null) return;
+        flush();
+        snapshot();
+        wal.close();
+    }
+
+    private long appendRecord() throws IOException {
+        if (failure != null) throw new IOException("Journal failed, changes are no longer logged", failure);
+        frame(pending, record, crc);
+        opsSinceSnapshot++;
+        return ++appendedSeq;
+    }
+
+    private void writeEnrollment(Enrollment e) throws IOException { writeEnrollment(recordOut, e); }
+
+    private static void writeEnrollment(DataOutputStream out, Enrollment e) throws IOException {
+        out.writeUTF(e.getEnrollmentId());
+        out.writeUTF(e.getStudentId());
+        out.writeUTF(e.getCourseCode());
+        out.writeByte(e.getSemester() == null ? -1 : e.getSemester().ordinal());
+        out.writeLong(e.getEnrollmentMillis());
+        Grade g = e.getGrade();
+        out.writeByte(g == null ? NO_GRADE : g.ordinal());
+    }
+
+    private static void frame(OutputStream out, ByteArrayOutputStream payload, CRC32 crc) throws IOException {
+        crc.reset();
+        byte[] bytes = payload.toByteArray();
+        crc.update(bytes);
+        writeInt(out, bytes.length);
+        out.write(bytes);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int v) throws IOException {
+        out.write(v >>> 24); out.write(v >>> 16); out.write(v >>> 8); out.write(v);
+    }
+
+    private void awaitDurable(long seq) throws IOException {
+        while (true) {
+            lock.lock();
+            try {
+                if (durableSeq >= seq) return;
+                if (flushing) { flushDone.awaitUninterruptibly(); continue; }
+                flushing = true;
+            } finally { lock.unlock(); }
+            flushBatch();
+        }
+    }
+
+    // takes the pending batch under the lock, writes and fsyncs it outside, so appenders never wait on the disk
+    private void flushBatch() throws IOException {
+        ByteArrayOutputStream batch;
+        long upTo;
+        lock.lock();
+        try {
+            batch = pending;
+            upTo = appendedSeq;
+            pending = new ByteArrayOutputStream(Math.max(64 * 1024, batch.size()));
+        } finally { lock.unlock(); }
+        boolean ok = false;
+        try {
+            write(batch);
+            ok = true;
+        } finally {
+            lock.lock();
+            try {
+                flushing = false;
+                if (ok) durableSeq = upTo;
+                else {
+                    // records appended meanwhile stay behind the batch, keeping the log in order
+                    pending.writeTo(batch);
+                    pending = batch;
+                }
+                flushDone.signalAll();
+            } finally { lock.unlock(); }
+        }
+    }
+
+    // caller holds the lock and no flush is running
+    private void writeBatch() throws IOException {
+        write(pending);
+        pending.reset();
+        durableSeq = appendedSeq;
+    }
+
+    // appends and fsyncs the batch, or leaves the log as it was before the call
+    private void write(ByteArrayOutputStream batch) throws IOException {
+        long start = wal.size();
+        try {
+            if (batch.size() > 0) wal.write(ByteBuffer.wrap(batch.toByteArray()));
+            wal.force(false);
+        } catch (IOException e) {
+            try {
+                wal.truncate(start);
+            } catch (IOException t) {
+                e.addSuppressed(t);
+                lock.lock();
+                try { failure = e; } finally { lock.unlock(); }
+            }
+            throw e;
+        }
+    }
+
+    private void backgroundFlush() {
+        try {
+            if (wal == null) return;
+            flush();
+            if (snapshotEveryOps > 0 && opsSinceSnapshot >= snapshotEveryOps) snapshot();
+        } catch (IOException e) {
+            System.out.println("[Journal] background flush failed: " + e.getMessage());
+        }
+    }
+
+    private static void appendFile(Path from, Path to) throws IOException {
+        try (FileChannel in = FileChannel.open(from, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(to, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long pos = 0, size = in.size();
+            while (pos < size) pos += in.transferTo(pos, size - pos, out);
+            out.force(false);
+        }
+        Files.delete(from);
+    }
+
+    // replays framed records; a torn or corrupt tail ends the replay (and is cut off for the live log)
+    private long replay(Path file, EnrollmentService service, boolean truncateTail) throws IOException {
+        if (Files.notExists(file)) return 0;
+        long count = 0, good = 0;
+        CRC32 check = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            while (true) {
+                int len;
+                try { len = in.readInt(); } catch (EOFException eof) { break; }
+                if (len <= 0 || len > (1 << 20)) break;
+                byte[] payload = new byte[len];
+                int stored;
+                try { in.readFully(payload); stored = in.readInt(); } catch (EOFException eof) { break; }
+                check.reset();
+                check.update(payload);
+                if ((int) check.getValue() != stored) break;
+                apply(new DataInputStream(new ByteArrayInputStream(payload)), service);
+                good += 4 + len + 4;
+                count++;
+            }
+        }
+        if (truncateTail && good < Files.size(file)) {
+            System.out.println("[Journal] discarding torn tail of " + file + " after " + count + " records");
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) { ch.truncate(good); }
+        }
+        return count;
+    }
+
+    private static void apply(DataInputStream in, EnrollmentService service) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ENROLL -> {
+                String id = in.readUTF(), sid = in.readUTF(), code = in.readUTF();
+                byte sem = in.readByte();
+                long date = in.readLong();
+                byte grade = in.readByte();
+                Enrollment e = new Enrollment(id, sid, code, sem < 0 ? null : Semester.values()[sem], date);
+                service.restore(e, grade == NO_GRADE ? null : Grade.values()[grade]);
+            }
+            case UNENROLL -> service.restoreUnenroll(in.readUTF());
+            case MARKS -> {
+                String id = in.readUTF();
+                service.restoreGrade(id, Grade.values()[in.readByte()]);
+            }
+            default -> throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Semester;
+
+// one row of a bulk enrollment (see EnrollmentService.enrollAll)
+public record EnrollmentRequest(String enrollmentId, String studentId, String courseCode, Semester semester) {}
@@ -1,72 +1,369 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.*;
+import edu.ccrm.events.DomainEvent;
+import edu.ccrm.events.EventRing;
 import edu.ccrm.exceptions.DuplicateEnrollmentException;
 import edu.ccrm.exceptions.MaxCreditLimitExceededException;
+import edu.ccrm.metrics.Metrics;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EnrollmentService {
-    private final Map<String, Enrollment> enrollments = new HashMap<>();
+    private static final int LOCK_STRIPES = 256;
+
+    private final EnrollmentStore store;
+    // live grade histograms, moved by changeGrade()/unenroll. departmentByCourse holds the department each
+    // course's grades are counted under ("" = none); a course's entry is also the lock that keeps its course and
+    // department counts in step, so a course changing department can move its counts along
+    private final GradeHistogram allGrades = new GradeHistogram();
+    private final Map<String, GradeHistogram> gradesByCourse = new ConcurrentHashMap<>();
+    private final Map<String, GradeHistogram> gradesByDepartment = new ConcurrentHashMap<>();
+    private final Map<Semester, GradeHistogram> gradesBySemester = new ConcurrentHashMap<>();
+    private final Map<String, String> departmentByCourse = new ConcurrentHashMap<>();
+    // every check-then-act on a student's enrollments runs under that student's stripe
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile EnrollmentJournal journal;
+    private volatile EventRing events;
     private final StudentService studentService;
     private final CourseService courseService;
     private final int maxCreditsPerSemester;
 
+    public enum Storage {
+        OBJECTS,  // Enrollment objects in hash maps with secondary indexes (default)
+        COLUMNAR  // primitive columns keyed by int surrogates, for very large institutions
+    }
+
+    public enum BatchMode {
+        ALL_OR_NOTHING, // a student's rows are applied only if every one of them is valid
+        BEST_EFFORT     // every valid row is applied
+    }
+
     public EnrollmentService(StudentService ss, CourseService cs) { this(ss, cs, 18); }
     public EnrollmentService(StudentService ss, CourseService cs, int maxCreditsPerSemester) {
+        this(ss, cs, maxCreditsPerSemester, Storage.OBJECTS);
+    }
+    public EnrollmentService(StudentService ss, CourseService cs, Storage storage) { this(ss, cs, 18, storage); }
+    public EnrollmentService(StudentService ss, CourseService cs, int maxCreditsPerSemester, Storage storage) {
         this.studentService = ss; this.courseService = cs; this.maxCreditsPerSemester = maxCreditsPerSemester;
+        this.store = storage == Storage.COLUMNAR ? new ColumnarEnrollmentStore() : new MapEnrollmentStore();
+        for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+        cs.onChange(this::courseChanged);
     }
 
+    // changes are appended to the journal under the student's stripe, so per-student order in the log is exact
+    public void setJournal(EnrollmentJournal journal) { this.journal = journal; }
+    // events are published under the stripe too, so a student's events arrive in the order they were applied;
+    // with Overflow.BLOCK a subscriber must therefore not write to this service
+    public void setEvents(EventRing events) { this.events = events; }
+
+    // public entry points are timed in Metrics.ENROLL etc.; the *Checked methods hold the actual logic
     public Enrollment enroll(String enrollmentId, String studentId, String courseCode, Semester semester)
             throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
-        boolean exists = enrollments.values().stream()
-                .anyMatch(e -> e.getStudentId().equals(studentId) && e.getCourseCode().equals(courseCode)
-                        && e.getSemester() == semester);
-        if (exists) throw new DuplicateEnrollmentException("Already enrolled in course for semester.");
-
-        int currentCredits = enrollments.values().stream()
-                .filter(e -> e.getStudentId().equals(studentId) && e.getSemester() == semester)
-                .mapToInt(e -> courseService.findByCode(e.getCourseCode()).map(Course::getCreditHours).orElse(0))
-                .sum();
+        long t = Metrics.ENROLL.start();
+        boolean ok = false;
+        try {
+            Enrollment en = enrollChecked(enrollmentId, studentId, courseCode, semester);
+            ok = true;
+            return en;
+        } finally {
+            Metrics.ENROLL.stop(t, ok);
+        }
+    }
+
+    private Enrollment enrollChecked(String enrollmentId, String studentId, String courseCode, Semester semester)
+            throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
         int courseCredits = courseService.findByCode(courseCode).map(Course::getCreditHours).orElse(0);
-        if (currentCredits + courseCredits > maxCreditsPerSemester)
-            throw new MaxCreditLimitExceededException("Exceed max credits: " + maxCreditsPerSemester);
+        EnrollmentJournal j = journal;
+        EventRing ev = events;
+        Enrollment en;
+        long seq = 0;
+        synchronized (lockFor(studentId)) {
+            if (store.contains(enrollmentId))
+                throw new DuplicateEnrollmentException("Enrollment id exists: " + enrollmentId);
+            if (store.hasCourse(studentId, semester, courseCode))
+                throw new DuplicateEnrollmentException("Already enrolled in course for semester.");
+            if (store.creditsAttempted(studentId, semester) + courseCredits > maxCreditsPerSemester)
+                throw new MaxCreditLimitExceededException("Exceed max credits: " + maxCreditsPerSemester);
 
-        Enrollment en = new Enrollment(enrollmentId, studentId, courseCode, semester);
-        enrollments.put(enrollmentId, en);
+            en = new Enrollment(enrollmentId, studentId, courseCode, semester);
+            // ids are global, so two students racing for the same id are settled by the store rather than by the stripe
+            if (!store.add(en, courseCredits))
+                throw new DuplicateEnrollmentException("Enrollment id exists: " + enrollmentId);
+            if (j != null) seq = j.logEnroll(en);
+            if (ev != null) ev.publish(DomainEvent.Type.ENROLLED, en, null);
+        }
+        if (j != null) j.commit(seq);
         return en;
     }
 
-    public void unenroll(String enrollmentId) { enrollments.remove(enrollmentId); }
-    public List<Enrollment> findByStudent(String studentId) {
-        return enrollments.values().stream().filter(e -> e.getStudentId().equals(studentId)).collect(Collectors.toList());
+    public void unenroll(String enrollmentId) {
+        long t = Metrics.UNENROLL.start();
+        boolean ok = false;
+        try {
+            unenrollChecked(enrollmentId);
+            ok = true;
+        } finally {
+            Metrics.UNENROLL.stop(t, ok);
+        }
+    }
+
+    private void unenrollChecked(String enrollmentId) {
+        Enrollment e = store.get(enrollmentId);
+        if (e == null) return;
+        EnrollmentJournal j = journal;
+        EventRing ev = events;
+        long seq = 0;
+        synchronized (lockFor(e.getStudentId())) {
+            if (!removeRow(enrollmentId, e.getStudentId())) return;
+            if (j != null) seq = j.logUnenroll(enrollmentId);
+            if (ev != null) ev.publish(DomainEvent.Type.UNENROLLED, e, null);
+        }
+        if (j != null) j.commit(seq);
+    }
+
+    /*
+     * Bulk enroll without exceptions: rows are grouped by student, course credits are looked up once per
+     * batch, and each student's group is validated and applied under that student's stripe, with groups
+     * running in parallel. Rows of one student are checked in submission order against both the stored
+     * state and the rows accepted before them. The journal is committed once for the whole batch.
+     * Timed in Metrics.ENROLL_ALL per row; rows not enrolled count as errors, as a failed enroll() does.
+     */
+    public BatchEnrollmentResult enrollAll(List<EnrollmentRequest> requests, BatchMode mode) {
+        long t = Metrics.ENROLL_ALL.start();
+        boolean ok = false;
+        try {
+            BatchEnrollmentResult result = enrollAllChecked(requests, mode);
+            Metrics.ENROLL_ALL.addErrors(result.size() - result.count(BatchEnrollmentResult.Outcome.ENROLLED));
+            ok = true;
+            return result;
+        } finally {
+            Metrics.ENROLL_ALL.stop(t, ok, requests.size());
+        }
+    }
+
+    private BatchEnrollmentResult enrollAllChecked(List<EnrollmentRequest> requests, BatchMode mode) {
+        BatchEnrollmentResult.Outcome[] outcomes = new BatchEnrollmentResult.Outcome[requests.size()];
+        Map<String, Integer> credits = new HashMap<>();
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            EnrollmentRequest r = requests.get(i);
+            credits.computeIfAbsent(r.courseCode(), code -> courseService.findByCode(code).map(Course::getCreditHours).orElse(0));
+            groups.computeIfAbsent(r.studentId(), k -> new ArrayList<>()).add(i);
+        }
+        EnrollmentJournal j = journal;
+        long lastSeq = groups.entrySet().parallelStream()
+                .mapToLong(g -> enrollGroup(g.getKey(), g.getValue(), requests, credits, mode, outcomes, j))
+                .max().orElse(0);
+        if (j != null && lastSeq > 0) j.commit(lastSeq);
+        return new BatchEnrollmentResult(outcomes);
+    }
+
+    private long enrollGroup(String studentId, List<Integer> rows, List<EnrollmentRequest> requests, Map<String, Integer> credits,
+                             BatchMode mode, BatchEnrollmentResult.Outcome[] outcomes, EnrollmentJournal j) {
+        synchronized (lockFor(studentId)) {
+            Map<Semester, Integer> added = new HashMap<>();
+            Set<String> batchIds = new HashSet<>();
+            Set<String> batchCourses = new HashSet<>();
+            List<Integer> accepted = new ArrayList<>(rows.size());
+            for (int row : rows) {
+                EnrollmentRequest r = requests.get(row);
+                int c = credits.get(r.courseCode());
+                if (store.contains(r.enrollmentId()) || !batchIds.add(r.enrollmentId())) {
+                    outcomes[row] = BatchEnrollmentResult.Outcome.DUPLICATE_ID;
+                } else if (!batchCourses.add(r.semester() + "|" + r.courseCode())
+                        || store.hasCourse(studentId, r.semester(), r.courseCode())) {
+                    outcomes[row] = BatchEnrollmentResult.Outcome.ALREADY_ENROLLED;
+                } else if (store.creditsAttempted(studentId, r.semester()) + added.getOrDefault(r.semester(), 0) + c > maxCreditsPerSemester) {
+                    outcomes[row] = BatchEnrollmentResult.Outcome.CREDIT_LIMIT;
+                } else {
+                    added.merge(r.semester(), c, Integer::sum);
+                    accepted.add(row);
+                }
+            }
+            if (mode == BatchMode.ALL_OR_NOTHING && accepted.size() < rows.size()) {
+                for (int row : accepted) outcomes[row] = BatchEnrollmentResult.Outcome.ROLLED_BACK;
+                return 0;
+            }
+
+            List<Enrollment> applied = new ArrayList<>(accepted.size());
+            for (int row : accepted) {
+                EnrollmentRequest r = requests.get(row);
+                Enrollment en = new Enrollment(r.enrollmentId(), studentId, r.courseCode(), r.semester());
+                // ids are global: another student's group may have claimed this one since the check above
+                if (!store.add(en, credits.get(r.courseCode()))) {
+                    outcomes[row] = BatchEnrollmentResult.Outcome.DUPLICATE_ID;
+                    if (mode == BatchMode.ALL_OR_NOTHING) {
+                        for (Enrollment done : applied) store.remove(done.getEnrollmentId(), studentId);
+                        for (int other : accepted) if (other != row) outcomes[other] = BatchEnrollmentResult.Outcome.ROLLED_BACK;
+                        return 0;
+                    }
+                    continue;
+                }
+                applied.add(en);
+                outcomes[row] = BatchEnrollmentResult.Outcome.ENROLLED;
+            }
+            long seq = 0;
+            if (j != null) for (Enrollment en : applied) seq = j.logEnroll(en);
+            EventRing ev = events;
+            if (ev != null) for (Enrollment en : applied) ev.publish(DomainEvent.Type.ENROLLED, en, null);
+            return seq;
+        }
+    }
+
+    public List<Enrollment> findByStudent(String studentId) { return store.byStudent(studentId); }
+    public List<Enrollment> findByCourse(String courseCode) { return store.byCourse(courseCode); }
+    public List<Enrollment> findByStudentAndSemester(String studentId, Semester semester) {
+        return store.byStudentTerm(studentId, semester);
     }
     public void recordMarks(String enrollmentId, double marks) {
-        Enrollment e = enrollments.get(enrollmentId);
+        long t = Metrics.RECORD_MARKS.start();
+        boolean ok = false;
+        try {
+            recordMarksChecked(enrollmentId, marks);
+            ok = true;
+        } finally {
+            Metrics.RECORD_MARKS.stop(t, ok);
+        }
+    }
+
+    private void recordMarksChecked(String enrollmentId, double marks) {
+        Enrollment e = store.get(enrollmentId);
         if (e == null) throw new IllegalArgumentException("Enrollment not found: " + enrollmentId);
-        e.setGrade(Grade.fromMarks(marks));
+        Grade g = Grade.fromMarks(marks);
+        EnrollmentJournal j = journal;
+        EventRing ev = events;
+        long seq = 0;
+        synchronized (lockFor(e.getStudentId())) {
+            if (!changeGrade(enrollmentId, e.getStudentId(), g)) throw new IllegalArgumentException("Enrollment not found: " + enrollmentId);
+            if (j != null) seq = j.logMarks(enrollmentId, g);
+            if (ev != null) ev.publish(DomainEvent.Type.MARKS_RECORDED, e, g);
+        }
+        if (j != null) j.commit(seq);
     }
-    public List<Enrollment> getAllEnrollments() { return new ArrayList<>(enrollments.values()); }
+    public List<Enrollment> getAllEnrollments() { return new ArrayList<>(store.all()); }
 
     public double computeGPAForStudent(String studentId) {
-        List<Enrollment> studentEnrolls = enrollments.values().stream()
-                .filter(e -> e.getStudentId().equals(studentId) && e.getGrade() != null)
-                .collect(Collectors.toList());
-        double totalPoints = 0.0; int totalCredits = 0;
-        for (Enrollment e : studentEnrolls) {
-            Course c = courseService.findByCode(e.getCourseCode()).orElse(null);
-            if (c == null) continue;
-            totalPoints += e.getGrade().getPoints() * c.getCreditHours();
-            totalCredits += c.getCreditHours();
+        long t = Metrics.GPA.start();
+        boolean ok = false;
+        try {
+            double gpa;
+            synchronized (lockFor(studentId)) { gpa = store.gpa(studentId); }
+            ok = true;
+            return gpa;
+        } finally {
+            Metrics.GPA.stop(t, ok);
+        }
+    }
+    public double computeGPAForStudent(String studentId, Semester semester) {
+        long t = Metrics.GPA.start();
+        boolean ok = false;
+        try {
+            double gpa;
+            synchronized (lockFor(studentId)) { gpa = store.gpa(studentId, semester); }
+            ok = true;
+            return gpa;
+        } finally {
+            Metrics.GPA.stop(t, ok);
         }
-        return totalCredits == 0 ? 0.0 : totalPoints / totalCredits;
+    }
+    public int creditsFor(String studentId, Semester semester) {
+        synchronized (lockFor(studentId)) { return store.creditsAttempted(studentId, semester); }
     }
 
-    public Map<Grade, Long> gradeDistribution() {
-        return enrollments.values().stream().map(Enrollment::getGrade).filter(Objects::nonNull)
-                .collect(Collectors.groupingBy(g -> g, Collectors.counting()));
+    public Map<Grade, Long> gradeDistribution() { return allGrades.toMap(); }
+    public Map<Grade, Long> gradeDistributionForCourse(String courseCode) { return histogram(gradesByCourse, courseCode); }
+    public Map<Grade, Long> gradeDistributionForDepartment(String department) {
+        return histogram(gradesByDepartment, department == null ? null : department.toLowerCase(Locale.ROOT));
     }
+    public Map<Grade, Long> gradeDistributionForSemester(Semester semester) { return histogram(gradesBySemester, semester); }
+
+    public void displayEnrollments() { store.all().forEach(System.out::println); }
+
+    /* ---------- journal replay: state is restored as logged, without re-running business rules ---------- */
+
+    Collection<Enrollment> enrollmentView() { return store.all(); }
 
-    public void displayEnrollments() { enrollments.values().forEach(System.out::println); }
+    // per-student graded credits and quality points for whole-population reports; semester null = all terms
+    Map<String, EnrollmentStore.Totals> gradedTotals(Semester semester) { return store.gradedTotals(semester); }
+
+    void restore(Enrollment e, Grade grade) {
+        int credits = courseService.findByCode(e.getCourseCode()).map(Course::getCreditHours).orElse(0);
+        synchronized (lockFor(e.getStudentId())) {
+            if (!store.add(e, credits)) return;
+            if (grade != null) changeGrade(e.getEnrollmentId(), e.getStudentId(), grade);
+        }
+    }
+
+    void restoreUnenroll(String enrollmentId) {
+        Enrollment e = store.get(enrollmentId);
+        if (e == null) return;
+        synchronized (lockFor(e.getStudentId())) { removeRow(enrollmentId, e.getStudentId()); }
+    }
+
+    void restoreGrade(String enrollmentId, Grade grade) {
+        Enrollment e = store.get(enrollmentId);
+        if (e == null) return;
+        synchronized (lockFor(e.getStudentId())) { changeGrade(enrollmentId, e.getStudentId(), grade); }
+    }
+
+    private Object lockFor(String studentId) {
+        int h = studentId.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    // callers hold the student's stripe; the histograms follow whatever grade the store ends up with
+    private boolean changeGrade(String enrollmentId, String studentId, Grade g) {
+        Enrollment current = store.get(enrollmentId);
+        if (current == null || !current.getStudentId().equals(studentId)) return false;
+        Grade old = current.getGrade();
+        store.setGrade(enrollmentId, g);
+        if (old != null) countGrade(current, old, -1);
+        countGrade(current, g, 1);
+        return true;
+    }
+
+    private boolean removeRow(String enrollmentId, String studentId) {
+        Enrollment removed = store.remove(enrollmentId, studentId);
+        if (removed == null) return false;
+        if (removed.getGrade() != null) countGrade(removed, removed.getGrade(), -1);
+        return true;
+    }
+
+    private void countGrade(Enrollment e, Grade g, int delta) {
+        allGrades.add(g, delta);
+        if (e.getSemester() != null) gradesBySemester.computeIfAbsent(e.getSemester(), k -> new GradeHistogram()).add(g, delta);
+        departmentByCourse.compute(e.getCourseCode(), (code, filed) -> {
+            String dept = filed != null ? filed : departmentOf(code);
+            gradesByCourse.computeIfAbsent(code, k -> new GradeHistogram()).add(g, delta);
+            if (!dept.isEmpty()) gradesByDepartment.computeIfAbsent(dept, k -> new GradeHistogram()).add(g, delta);
+            return dept;
+        });
+    }
+
+    // a course added, updated or removed: its counts move to the department it has now (none once removed)
+    private void courseChanged(String code) {
+        departmentByCourse.computeIfPresent(code, (k, filed) -> {
+            String dept = departmentOf(code);
+            GradeHistogram counts = gradesByCourse.get(code);
+            if (dept.equals(filed) || counts == null) return dept;
+            for (Grade g : Grade.values()) {
+                long n = counts.count(g);
+                if (n == 0) continue;
+                if (!filed.isEmpty()) gradesByDepartment.get(filed).add(g, -n);
+                if (!dept.isEmpty()) gradesByDepartment.computeIfAbsent(dept, d -> new GradeHistogram()).add(g, n);
+            }
+            return dept;
+        });
+    }
+
+    private String departmentOf(String code) {
+        return courseService.findByCode(code).map(Course::getDepartment).map(d -> d.toLowerCase(Locale.ROOT)).orElse("");
+    }
+
+    private static <K> Map<Grade, Long> histogram(Map<K, GradeHistogram> byKey, K key) {
+        GradeHistogram h = key == null ? null : byKey.get(key);
+        return h == null ? new EnumMap<>(Grade.class) : h.toMap();
+    }
 }
\ No newline at end of file
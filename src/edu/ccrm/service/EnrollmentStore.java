@@ -0,0 +1,46 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Storage engine under EnrollmentService. The service owns the business rules, the per-student
+ * stripes and the journal; a store only keeps rows and answers the lookups those rules need.
+ * Mutations of a student's rows always arrive under that student's stripe, so a store only has to
+ * protect its own shared structures. Enrollment objects handed out may be detached copies (the
+ * columnar store builds them on demand), so callers change grades through the store, never the object.
+ */
+interface EnrollmentStore {
+    // graded credits and quality points of one student, as folded by gradedTotals()
+    final class Totals {
+        double qualityPoints;
+        int gradedCredits;
+    }
+
+    Enrollment get(String enrollmentId);
+    boolean contains(String enrollmentId);
+    // false if the id is already taken; otherwise the row is stored with the credits it is worth
+    boolean add(Enrollment e, int credits);
+    // removes the row only if it belongs to the student; returns the removed row, or null
+    Enrollment remove(String enrollmentId, String studentId);
+    void setGrade(String enrollmentId, Grade grade);
+
+    boolean hasCourse(String studentId, Semester semester, String courseCode);
+    int creditsAttempted(String studentId, Semester semester);
+    double gpa(String studentId);
+    double gpa(String studentId, Semester semester);
+    // every graded row of the semester (null = all terms) folded per student; used by whole-population reports
+    Map<String, Totals> gradedTotals(Semester semester);
+
+    List<Enrollment> byStudent(String studentId);
+    List<Enrollment> byStudentTerm(String studentId, Semester semester);
+    List<Enrollment> byCourse(String courseCode);
+    // read-only; may be a live view or a point-in-time copy
+    Collection<Enrollment> all();
+    int size();
+}
@@ -0,0 +1,94 @@
+package edu.ccrm.service;
+
+/*
+ * Open-addressing table of (64-bit key hash, record address) pairs for PagedRepository: 16 bytes per
+ * record and no key strings on the heap. Different keys may share a hash, so lookups walk every slot with
+ * a matching hash and let the caller check the key stored with the record. Linear probing; removal
+ * shifts the rest of the run back instead of leaving tombstones. Address 0 marks an empty slot.
+ * Not thread-safe; PagedRepository guards it with its lock.
+ */
+final class HashIndex {
+    private long[] hashes;
+    private long[] addresses;
+    private int size;
+
+    HashIndex(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, expected * 2L)) - 1) << 1;
+        hashes = new long[cap];
+        addresses = new long[cap];
+    }
+
+    int size() { return size; }
+
+    long[] addresses() {
+        long[] out = new long[size];
+        int n = 0;
+        for (long a : addresses) if (a != 0) out[n++] = a;
+        return out;
+    }
+
+    // probing: for (int s = first(h); address(s) != 0; s = next(s)) if (hash(s) == h) ...
+    int first(long hash) { return (int) mix(hash) & (hashes.length - 1); }
+    int next(int slot) { return (slot + 1) & (hashes.length - 1); }
+    long hash(int slot) { return hashes[slot]; }
+    long address(int slot) { return addresses[slot]; }
+
+    boolean contains(long hash, long address) {
+        for (int s = first(hash); addresses[s] != 0; s = next(s)) {
+            if (hashes[s] == hash && addresses[s] == address) return true;
+        }
+        return false;
+    }
+
+    void add(long hash, long address) {
+        if ((size + 1) * 3L > hashes.length * 2L) grow();
+        int s = first(hash);
+        while (addresses[s] != 0) s = next(s);
+        hashes[s] = hash;
+        addresses[s] = address;
+        size++;
+    }
+
+    boolean replace(long hash, long oldAddress, long newAddress) {
+        for (int s = first(hash); addresses[s] != 0; s = next(s)) {
+            if (hashes[s] == hash && addresses[s] == oldAddress) { addresses[s] = newAddress; return true; }
+        }
+        return false;
+    }
+
+    boolean remove(long hash, long address) {
+        int s = first(hash);
+        while (addresses[s] != 0 && !(hashes[s] == hash && addresses[s] == address)) s = next(s);
+        if (addresses[s] == 0) return false;
+        // pull later members of the run into the hole when their home slot does not lie inside (hole, slot]
+        int hole = s;
+        for (int t = next(s); addresses[t] != 0; t = next(t)) {
+            int home = first(hashes[t]);
+            boolean movable = hole <= t ? (home <= hole || home > t) : (home <= hole && home > t);
+            if (movable) {
+                hashes[hole] = hashes[t];
+                addresses[hole] = addresses[t];
+                hole = t;
+            }
+        }
+        addresses[hole] = 0;
+        hashes[hole] = 0;
+        size--;
+        return true;
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes, oldAddresses = addresses;
+        hashes = new long[oldHashes.length * 2];
+        addresses = new long[oldHashes.length * 2];
+        size = 0;
+        for (int i = 0; i < oldHashes.length; i++) if (oldAddresses[i] != 0) add(oldHashes[i], oldAddresses[i]);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,72 @@
+package edu.ccrm.service;
+
+import edu.ccrm.metrics.Metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Size-bounded LRU map split into segments by key hash. Each segment is an access-ordered LinkedHashMap
+ * behind its own monitor, so threads touching different keys rarely wait on each other and the eviction
+ * order is exact within a segment. Hits, misses and evictions are Metrics counters named
+ * cache.<name>.hits/.misses/.evictions.
+ */
+final class LruCache<V> {
+    private static final int SEGMENTS = 16;
+
+    private final Segment<V>[] segments;
+    private final LongAdder hits, misses;
+
+    private static final class Segment<V> extends LinkedHashMap<String, V> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+    LruCache(String name, int capacity) {
+        this.hits = Metrics.counter("cache." + name + ".hits");
+        this.misses = Metrics.counter("cache." + name + ".misses");
+        LongAdder evictions = Metrics.counter("cache." + name + ".evictions");
+        int segments = capacity < SEGMENTS * 4 ? 1 : SEGMENTS;
+        @SuppressWarnings("unchecked") Segment<V>[] s = (Segment<V>[]) new Segment<?>[segments];
+        this.segments = s;
+        for (int i = 0; i < segments; i++) this.segments[i] = new Segment<>(Math.max(1, capacity / segments), evictions);
+    }
+
+    V get(String key) {
+        Segment<V> s = segmentFor(key);
+        V v;
+        synchronized (s) { v = s.get(key); }
+        if (v != null) hits.increment(); else misses.increment();
+        return v;
+    }
+
+    void put(String key, V value) {
+        Segment<V> s = segmentFor(key);
+        synchronized (s) { s.put(key, value); }
+    }
+
+    void remove(String key) {
+        Segment<V> s = segmentFor(key);
+        synchronized (s) { s.remove(key); }
+    }
+
+    private Segment<V> segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[((h ^ (h >>> 16)) & 0x7fffffff) % segments.length];
+    }
+}
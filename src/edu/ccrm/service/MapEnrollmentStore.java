@@ -0,0 +1,173 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Default engine: Enrollment objects in a concurrent map, with secondary indexes and running GPA totals.
+final class MapEnrollmentStore implements EnrollmentStore {
+    private final Map<String, Enrollment> enrollments = new ConcurrentHashMap<>();
+    // secondary indexes, kept in step with the primary map by index()/unindex()
+    private final Map<String, Set<Enrollment>> byStudent = new ConcurrentHashMap<>();
+    private final Map<StudentTerm, Set<Enrollment>> byStudentTerm = new ConcurrentHashMap<>();
+    private final Map<String, Set<Enrollment>> byCourse = new ConcurrentHashMap<>();
+    // running totals per student and per student/semester, updated in place on every change
+    private final Map<String, Load> studentLoad = new ConcurrentHashMap<>();
+    private final Map<StudentTerm, Load> termLoad = new ConcurrentHashMap<>();
+    private final Map<String, Integer> creditsByEnrollment = new ConcurrentHashMap<>();
+
+    private record StudentTerm(String studentId, Semester semester) {}
+
+    private static final class Load {
+        int enrollments;
+        int creditsAttempted;
+        int gradedCredits;
+        double qualityPoints;
+
+        void add(int credits) { enrollments++; creditsAttempted += credits; }
+        void remove(int credits) { enrollments--; creditsAttempted -= credits; }
+        void grade(Grade g, int credits, int sign) {
+            gradedCredits += sign * credits;
+            qualityPoints += sign * g.getPoints() * credits;
+        }
+        double gpa() { return gradedCredits == 0 ? 0.0 : qualityPoints / gradedCredits; }
+    }
+
+    @Override public Enrollment get(String enrollmentId) { return enrollments.get(enrollmentId); }
+    @Override public boolean contains(String enrollmentId) { return enrollments.containsKey(enrollmentId); }
+
+    @Override
+    public boolean add(Enrollment e, int credits) {
+        // ids are global, so two students racing for the same id are settled here rather than by the stripe
+        if (enrollments.putIfAbsent(e.getEnrollmentId(), e) != null) return false;
+        index(e, credits);
+        if (e.getGrade() != null) grade(e, e.getGrade(), 1);
+        return true;
+    }
+
+    @Override
+    public Enrollment remove(String enrollmentId, String studentId) {
+        Enrollment e = enrollments.get(enrollmentId);
+        if (e == null || !e.getStudentId().equals(studentId) || !enrollments.remove(enrollmentId, e)) return null;
+        unindex(e);
+        return e;
+    }
+
+    // grades are not index keys; only the GPA totals move, backing out any grade being overwritten
+    @Override
+    public void setGrade(String enrollmentId, Grade g) {
+        Enrollment e = enrollments.get(enrollmentId);
+        Grade old = e.getGrade();
+        e.setGrade(g);
+        if (old != null) grade(e, old, -1);
+        grade(e, g, 1);
+    }
+
+    @Override
+    public boolean hasCourse(String studentId, Semester semester, String courseCode) {
+        return byStudentTerm.getOrDefault(new StudentTerm(studentId, semester), Set.of()).stream()
+                .anyMatch(e -> e.getCourseCode().equals(courseCode));
+    }
+
+    @Override
+    public int creditsAttempted(String studentId, Semester semester) {
+        Load load = termLoad.get(new StudentTerm(studentId, semester));
+        return load == null ? 0 : load.creditsAttempted;
+    }
+
+    @Override
+    public double gpa(String studentId) {
+        Load load = studentLoad.get(studentId);
+        return load == null ? 0.0 : load.gpa();
+    }
+
+    @Override
+    public double gpa(String studentId, Semester semester) {
+        Load load = termLoad.get(new StudentTerm(studentId, semester));
+        return load == null ? 0.0 : load.gpa();
+    }
+
+    // one fork-join pass: each leaf folds into its own map, the maps are merged pairwise
+    @Override
+    public Map<String, Totals> gradedTotals(Semester semester) {
+        return enrollments.values().parallelStream()
+                .filter(e -> semester == null || e.getSemester() == semester)
+                .collect(HashMap::new, this::accumulate, MapEnrollmentStore::merge);
+    }
+
+    @Override public List<Enrollment> byStudent(String studentId) { return new ArrayList<>(byStudent.getOrDefault(studentId, Set.of())); }
+    @Override public List<Enrollment> byCourse(String courseCode) { return new ArrayList<>(byCourse.getOrDefault(courseCode, Set.of())); }
+    @Override
+    public List<Enrollment> byStudentTerm(String studentId, Semester semester) {
+        return new ArrayList<>(byStudentTerm.getOrDefault(new StudentTerm(studentId, semester), Set.of()));
+    }
+    @Override public Collection<Enrollment> all() { return Collections.unmodifiableCollection(enrollments.values()); }
+    @Override public int size() { return enrollments.size(); }
+
+    private void accumulate(Map<String, Totals> acc, Enrollment e) {
+        Grade g = e.getGrade();
+        if (g == null) return;
+        int credits = creditsByEnrollment.getOrDefault(e.getEnrollmentId(), 0);
+        Totals t = acc.computeIfAbsent(e.getStudentId(), k -> new Totals());
+        t.gradedCredits += credits;
+        t.qualityPoints += g.getPoints() * credits;
+    }
+
+    private static void merge(Map<String, Totals> into, Map<String, Totals> from) {
+        from.forEach((id, t) -> into.merge(id, t, (a, b) -> {
+            a.gradedCredits += b.gradedCredits;
+            a.qualityPoints += b.qualityPoints;
+            return a;
+        }));
+    }
+
+    private void grade(Enrollment e, Grade g, int sign) {
+        int credits = creditsByEnrollment.get(e.getEnrollmentId());
+        studentLoad.get(e.getStudentId()).grade(g, credits, sign);
+        termLoad.get(new StudentTerm(e.getStudentId(), e.getSemester())).grade(g, credits, sign);
+    }
+
+    // callers hold the student's stripe; byCourse is shared across stripes, so every index edit is an atomic compute
+    private void index(Enrollment e, int credits) {
+        creditsByEnrollment.put(e.getEnrollmentId(), credits);
+        studentLoad.computeIfAbsent(e.getStudentId(), k -> new Load()).add(credits);
+        termLoad.computeIfAbsent(new StudentTerm(e.getStudentId(), e.getSemester()), k -> new Load()).add(credits);
+        addTo(byStudent, e.getStudentId(), e);
+        addTo(byStudentTerm, new StudentTerm(e.getStudentId(), e.getSemester()), e);
+        addTo(byCourse, e.getCourseCode(), e);
+    }
+
+    private void unindex(Enrollment e) {
+        int credits = creditsByEnrollment.remove(e.getEnrollmentId());
+        release(studentLoad, e.getStudentId(), e.getGrade(), credits);
+        release(termLoad, new StudentTerm(e.getStudentId(), e.getSemester()), e.getGrade(), credits);
+        removeFrom(byStudent, e.getStudentId(), e);
+        removeFrom(byStudentTerm, new StudentTerm(e.getStudentId(), e.getSemester()), e);
+        removeFrom(byCourse, e.getCourseCode(), e);
+    }
+
+    private static <K> void release(Map<K, Load> loads, K key, Grade grade, int credits) {
+        Load load = loads.get(key);
+        if (grade != null) load.grade(grade, credits, -1);
+        load.remove(credits);
+        if (load.enrollments == 0) loads.remove(key);
+    }
+
+    private static <K> void addTo(Map<K, Set<Enrollment>> index, K key, Enrollment e) {
+        index.compute(key, (k, set) -> {
+            if (set == null) set = ConcurrentHashMap.newKeySet();
+            set.add(e);
+            return set;
+        });
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Enrollment>> index, K key, Enrollment e) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(e);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package edu.ccrm.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Everything on the heap, as the services always kept it.
+final class MapRepository<T> implements Repository<T> {
+    private final Map<String, T> values = new ConcurrentHashMap<>();
+    private final Function<T, String> id;
+
+    MapRepository(Function<T, String> id) { this.id = id; }
+
+    @Override public T get(String key) { return values.get(key); }
+    @Override public boolean insert(T value) { return values.putIfAbsent(id.apply(value), value) == null; }
+    @Override public void update(T value) { values.put(id.apply(value), value); }
+    @Override public T remove(String key) { return values.remove(key); }
+    @Override public Stream<T> stream() { return values.values().stream(); }
+    @Override public long size() { return values.size(); }
+}
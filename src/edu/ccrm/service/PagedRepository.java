@@ -0,0 +1,456 @@
+package edu.ccrm.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+/*
+ * Entities in one local file of 8 KiB pages, with only a hash index and an LRU cache of recent values on
+ * the heap.
+ *
+ *   page 0     magic CCRMPAGE, int version, int page size
+ *   page 1..   records: int length, byte state (1 live, 0 dead), int CRC32 of the payload,
+ *              payload = UTF key + codec body
+ *
+ * Records are appended and never cross a page boundary unless they are bigger than a page (those start
+ * on a fresh page); a zero length means the rest of the page is unused. An update appends the new version
+ * and flips the old one's state byte, a removal just flips it. On open the file is scanned once to rebuild
+ * the index; a torn or corrupt tail (crash mid-append) is cut off, and when dead records outweigh live ones
+ * the file is rewritten without them. Writes reach the OS straight away and are forced to disk on close;
+ * the enrollment journal and the snapshot/CSV exports remain the durable history.
+ *
+ * Reads take the read lock for the index probe and one positional read; writes take the write lock, so a
+ * cache miss and a concurrent update can never leave a stale value in the cache. Compaction only happens
+ * while opening, so an address stays readable for as long as the file is open.
+ */
+final class PagedRepository<T> implements Repository<T> {
+    static final int PAGE_SIZE = 8192;
+    private static final long MAGIC = 0x4343524d50414745L; // "CCRMPAGE"
+    private static final int VERSION = 1;
+    private static final int HEADER = 9;
+    private static final byte LIVE = 1, DEAD = 0;
+    private static final int SCAN_BUFFER = 64 * PAGE_SIZE;
+    private static final long COMPACT_MIN_DEAD_BYTES = 1 << 20;
+
+    // how one kind of entity is written; the repository stores the key in front of the body itself
+    interface Codec<T> {
+        String key(T value);
+        void write(T value, DataOutput out) throws IOException;
+        T read(String key, DataInput in) throws IOException;
+    }
+
+    // nullable strings for codecs
+    static void writeString(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    static String readString(DataInput in) throws IOException { return in.readBoolean() ? in.readUTF() : null; }
+
+    private final Path file;
+    private final Codec<T> codec;
+    private final LruCache<T> cache;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private HashIndex index;
+    private long tail;
+    private long liveBytes, deadBytes;
+
+    PagedRepository(Path file, Codec<T> codec, String name, int cacheEntries) throws IOException {
+        this.file = file;
+        this.codec = codec;
+        this.cache = cacheEntries > 0 ? new LruCache<>(name, cacheEntries) : null;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        open();
+        if (deadBytes > liveBytes && deadBytes >= COMPACT_MIN_DEAD_BYTES) compact();
+    }
+
+    @Override
+    public T get(String id) {
+        if (cache != null) {
+            T v = cache.get(id);
+            if (v != null) return v;
+        }
+        lock.readLock().lock();
+        try {
+            long h = hash(id);
+            for (int s = index.first(h); index.address(s) != 0; s = index.next(s)) {
+                if (index.hash(s) != h) continue;
+                ByteBuffer record = read(index.address(s));
+                if (!key(record).equals(id)) continue;
+                T v = decode(record, id);
+                if (cache != null) cache.put(id, v);
+                return v;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean insert(T value) {
+        String id = codec.key(value);
+        lock.writeLock().lock();
+        try {
+            if (find(id) != 0) return false;
+            index.add(hash(id), append(id, value));
+            if (cache != null) cache.put(id, value);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(T value) {
+        String id = codec.key(value);
+        lock.writeLock().lock();
+        try {
+            long old = find(id);
+            long address = append(id, value);
+            if (old == 0) index.add(hash(id), address);
+            else {
+                index.replace(hash(id), old, address);
+                kill(old);
+            }
+            if (cache != null) cache.put(id, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public T remove(String id) {
+        lock.writeLock().lock();
+        try {
+            long address = find(id);
+            if (address == 0) return null;
+            T old = decode(read(address), id);
+            index.remove(hash(id), address);
+            kill(address);
+            if (cache != null) cache.remove(id);
+            return old;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        lock.readLock().lock();
+        try { return index.size(); } finally { lock.readLock().unlock(); }
+    }
+
+    /*
+     * Snapshot walk: the addresses live when the stream starts are copied (8 bytes per record) and sorted,
+     * then records are read in file order, many per positional read. Every id present at the start comes
+     * out exactly once, as it was then; records are never overwritten in place while the file is open, so
+     * later updates and removals cannot disturb the walk.
+     */
+    @Override
+    public Stream<T> stream() {
+        long[] addresses;
+        lock.readLock().lock();
+        try { addresses = index.addresses(); } finally { lock.readLock().unlock(); }
+        Arrays.sort(addresses); // offsets sit in the high bits, so this is file order
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(addresses.length, Spliterator.NONNULL | Spliterator.SIZED) {
+            private final ArrayDeque<T> batch = new ArrayDeque<>();
+            private int next;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (batch.isEmpty()) {
+                    if (next == addresses.length) return false;
+                    readBatch();
+                }
+                action.accept(batch.poll());
+                return true;
+            }
+
+            private void readBatch() {
+                long from = offset(addresses[next]);
+                int last = next;
+                while (last + 1 < addresses.length && offset(addresses[last + 1]) + length(addresses[last + 1]) - from <= SCAN_BUFFER) last++;
+                long to = offset(addresses[last]) + length(addresses[last]);
+                try {
+                    ByteBuffer buf = ByteBuffer.allocate((int) (to - from));
+                    lock.readLock().lock();
+                    try { readFully(buf, from); } finally { lock.readLock().unlock(); }
+                    for (int i = next; i <= last; i++) {
+                        ByteBuffer record = buf.slice((int) (offset(addresses[i]) - from), length(addresses[i]));
+                        batch.add(decode(record, key(record)));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                next = last + 1;
+            }
+        }, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(true);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* ---------- file layout ---------- */
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(16).putLong(MAGIC).putInt(VERSION).putInt(PAGE_SIZE).flip();
+            writeFully(header, 0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            readFully(header, 0);
+            header.flip();
+            if (header.remaining() < 16 || header.getLong() != MAGIC || header.getInt() != VERSION || header.getInt() != PAGE_SIZE)
+                throw new IOException("Not a CCRM page file: " + file);
+        }
+        index = new HashIndex(1024);
+        liveBytes = deadBytes = 0;
+        long end = Math.max(PAGE_SIZE, channel.size());
+        long position = PAGE_SIZE;
+        while (position < end) {
+            long next = scanAll(position, end);
+            if (next == position) break;
+            position = next;
+        }
+        // whatever follows the last good record is a torn append
+        tail = position;
+        if (channel.size() > tail) channel.truncate(tail);
+    }
+
+    // rebuilds the index from one buffer's worth of records, live and dead; returns where it stopped
+    private long scanAll(long from, long end) throws IOException {
+        return scanRecords(from, end, (address, id, record) -> {
+            if (record.get(4) == DEAD) { deadBytes += length(address); return; }
+            long h = hash(id);
+            long older = find(id);
+            if (older != 0) {
+                // a crash between appending a new version and killing the old one: the later record wins
+                index.replace(h, older, address);
+                kill(older);
+            } else {
+                index.add(h, address);
+            }
+            liveBytes += length(address);
+        });
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor { void visit(long address, String id, ByteBuffer record) throws IOException; }
+
+    // live records only
+    private long scan(long from, long end, RecordVisitor visitor) throws IOException {
+        return scanRecords(from, end, (address, id, record) -> {
+            if (record.get(4) == LIVE) visitor.visit(address, id, record);
+        });
+    }
+
+    /*
+     * Visits the records that start in [from, from + SCAN_BUFFER) and returns the position after the last
+     * one; a record too big for the buffer is read on its own. Stops early at anything that does not parse
+     * (bad length, state or CRC), which open() treats as the end of the file.
+     */
+    private long scanRecords(long from, long end, RecordVisitor visitor) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(SCAN_BUFFER, Math.max(end - from, PAGE_SIZE)));
+        readFully(buf, from);
+        buf.flip();
+        long position = from;
+        while (position < end) {
+            int inPage = (int) (position % PAGE_SIZE);
+            if (PAGE_SIZE - inPage < HEADER) { position += PAGE_SIZE - inPage; continue; }
+            int at = (int) (position - from);
+            if (at + 4 > buf.limit()) break;
+            int length = buf.getInt(at);
+            if (length == 0) { position += PAGE_SIZE - inPage; continue; }
+            if (length < HEADER + 2 || position + length > end) return position;
+            ByteBuffer record;
+            if (at + length <= buf.limit()) {
+                record = buf.slice(at, length);
+            } else if (position == from) {
+                record = ByteBuffer.allocate(length);
+                readFully(record, position);
+                record.flip();
+                if (record.remaining() < length) return from;
+            } else {
+                break;
+            }
+            byte state = record.get(4);
+            if ((state != LIVE && state != DEAD) || !crcMatches(record)) return position;
+            visitor.visit(pack(position, length), key(record), record);
+            position += length;
+        }
+        return position;
+    }
+
+    private long append(String id, T value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeByte(LIVE);
+        out.writeInt(0);
+        out.writeUTF(id);
+        codec.write(value, out);
+        out.flush();
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int length = record.remaining();
+        if (length >= 1 << 24) throw new IOException("Record too large: " + id);
+        record.putInt(0, length);
+        CRC32 crc = new CRC32();
+        crc.update(record.slice(HEADER, length - HEADER));
+        record.putInt(5, (int) crc.getValue());
+
+        long position = tail;
+        long room = PAGE_SIZE - position % PAGE_SIZE;
+        if (length > room) {
+            // pad out the page; the zero length that marks the gap needs at least 4 bytes
+            if (room >= 4) writeFully(ByteBuffer.allocate(4), position);
+            position += room;
+        }
+        writeFully(record, position);
+        tail = position + length;
+        liveBytes += length;
+        return pack(position, length);
+    }
+
+    private void kill(long address) throws IOException {
+        writeFully(ByteBuffer.wrap(new byte[]{DEAD}), offset(address) + 4);
+        liveBytes -= length(address);
+        deadBytes += length(address);
+    }
+
+    // copies the live records into a fresh file, which then replaces this one
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(tmp);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            out.write(ByteBuffer.allocate(16).putLong(MAGIC).putInt(VERSION).putInt(PAGE_SIZE).flip(), 0);
+            long[] position = {PAGE_SIZE};
+            long from = PAGE_SIZE;
+            while (from < tail) {
+                from = scan(from, tail, (address, id, record) -> {
+                    if (!index.contains(hash(id), address)) return;
+                    int length = record.remaining();
+                    long room = PAGE_SIZE - position[0] % PAGE_SIZE;
+                    if (length > room) {
+                        if (room >= 4) out.write(ByteBuffer.allocate(4), position[0]);
+                        position[0] += room;
+                    }
+                    ByteBuffer copy = record.duplicate();
+                    while (copy.hasRemaining()) out.write(copy, position[0] + copy.position());
+                    position[0] += length;
+                });
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    // address of the live record for id, or 0
+    private long find(String id) throws IOException {
+        long h = hash(id);
+        for (int s = index.first(h); index.address(s) != 0; s = index.next(s)) {
+            if (index.hash(s) == h && key(read(index.address(s))).equals(id)) return index.address(s);
+        }
+        return 0;
+    }
+
+    private ByteBuffer read(long address) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(length(address));
+        readFully(record, offset(address));
+        record.flip();
+        return record;
+    }
+
+    private T decode(ByteBuffer record, String id) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.array(), record.arrayOffset() + HEADER, record.remaining() - HEADER));
+            in.readUTF();
+            return codec.read(id, in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt record for " + id + " in " + file, e);
+        }
+    }
+
+    private static String key(ByteBuffer record) {
+        int length = Short.toUnsignedInt(record.getShort(HEADER));
+        return new String(record.array(), record.arrayOffset() + HEADER + 2, length, StandardCharsets.UTF_8);
+    }
+
+    private static boolean crcMatches(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.slice(HEADER, record.remaining() - HEADER));
+        return (int) crc.getValue() == record.getInt(5);
+    }
+
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position + buf.position());
+            if (n < 0) break;
+        }
+    }
+
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        int start = buf.position();
+        while (buf.hasRemaining()) channel.write(buf, position + buf.position() - start);
+    }
+
+    // FNV-1a over the UTF-16 units; the index only needs a well spread 64-bit value
+    private static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // an address packs the file offset (40 bits) and the record length (24 bits); never 0 since page 0 is the header
+    private static long pack(long offset, int length) { return offset << 24 | length; }
+    private static long offset(long address) { return address >>> 24; }
+    private static int length(long address) { return (int) (address & 0xffffff); }
+}
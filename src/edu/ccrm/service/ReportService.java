@@ -0,0 +1,117 @@
+package edu.ccrm.service;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.CSVExporter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Whole-population GPA reports (deans' lists, probation runs). Every report starts from one pass
+// over all enrollments that folds graded credits into per-student totals (fork-join on the object
+// store, a column sweep on the columnar one); everything after that is O(students).
+public class ReportService {
+    // GPA scale 0.00..4.00 in hundredths; percentiles come from this histogram, not from a sorted copy
+    private static final int GPA_BUCKETS = 401;
+    // best first: higher GPA, then more graded credits, then student id
+    private static final Comparator<StudentGpa> RANK = Comparator.comparingDouble(StudentGpa::gpa)
+            .thenComparingInt(StudentGpa::gradedCredits).reversed()
+            .thenComparing(StudentGpa::studentId);
+
+    private final StudentService studentService;
+    private final EnrollmentService enrollmentService;
+    private final CSVExporter exporter = new CSVExporter();
+
+    public record StudentGpa(String studentId, String name, String program, double gpa, int gradedCredits) {}
+
+    // program == null means every program, semester == null means cumulative over all terms
+    public record Cohort(String program, Semester semester) {
+        @Override public String toString() {
+            return (program == null ? "all programs" : program) + " / " + (semester == null ? "all terms" : semester.name());
+        }
+    }
+
+    public ReportService(StudentService ss, EnrollmentService es) {
+        this.studentService = ss; this.enrollmentService = es;
+    }
+
+    public List<StudentGpa> topN(Cohort cohort, int n) { return best(cohort, n, RANK); }
+    public List<StudentGpa> bottomN(Cohort cohort, int n) { return best(cohort, n, RANK.reversed()); }
+
+    // GPA at each requested percentile (0..100) of the cohort, e.g. percentiles(c, 90) is the top-10% cutoff
+    public double[] percentiles(Cohort cohort, double... pct) {
+        long[] hist = ranked(cohort).collect(() -> new long[GPA_BUCKETS],
+                (h, s) -> h[bucket(s.gpa())]++,
+                (a, b) -> { for (int i = 0; i < a.length; i++) a[i] += b[i]; });
+        long total = 0;
+        for (long c : hist) total += c;
+        double[] out = new double[pct.length];
+        for (int p = 0; p < pct.length; p++) {
+            if (total == 0) { out[p] = 0.0; continue; }
+            // nearest-rank: the smallest GPA with at least pct% of the cohort at or below it
+            long rank = Math.max(1, (long) Math.ceil(pct[p] / 100.0 * total));
+            long seen = 0;
+            int b = 0;
+            while ((seen += hist[b]) < rank) b++;
+            out[p] = b / 100.0;
+        }
+        return out;
+    }
+
+    // full ranking, best first, streamed straight into the CSV exporter
+    public Path exportRanking(Cohort cohort) throws IOException {
+        String name = "gpa_ranking"
+                + (cohort.program() == null ? "" : "_" + cohort.program().replaceAll("[^A-Za-z0-9]+", "_"))
+                + (cohort.semester() == null ? "" : "_" + cohort.semester().name()) + ".csv";
+        Path file = AppConfig.getInstance().getExportFolder().resolve(name);
+        long[] rank = {0};
+        exporter.write(file, "rank,studentId,name,program,gpa,gradedCredits",
+                ranked(cohort).sorted(RANK).iterator(), (s, line) -> line
+                        .field(Long.toString(++rank[0]))
+                        .field(s.studentId())
+                        .field(s.name())
+                        .field(s.program())
+                        .field(String.format(Locale.ROOT, "%.3f", s.gpa()))
+                        .field(s.gradedCredits()));
+        return file;
+    }
+
+    // bounded min-heap per fork-join leaf, merged pairwise; only n candidates are ever held per leaf.
+    // Each leaf starts small and grows with what it holds, so a huge n costs no more than the cohort itself.
+    private List<StudentGpa> best(Cohort cohort, int n, Comparator<StudentGpa> order) {
+        if (n <= 0) return new ArrayList<>();
+        Comparator<StudentGpa> worstFirst = order.reversed();
+        int capacity = Math.min(n, 64);
+        PriorityQueue<StudentGpa> heap = ranked(cohort).collect(() -> new PriorityQueue<>(capacity, worstFirst),
+                (h, s) -> offer(h, s, n),
+                (a, b) -> b.forEach(s -> offer(a, s, n)));
+        List<StudentGpa> out = new ArrayList<>(heap);
+        out.sort(order);
+        return out;
+    }
+
+    private static void offer(PriorityQueue<StudentGpa> heap, StudentGpa s, int n) {
+        if (heap.size() < n) heap.add(s);
+        else if (heap.comparator().compare(s, heap.peek()) > 0) { heap.poll(); heap.add(s); }
+    }
+
+    // per-student GPAs for the cohort; students without graded credits are left out
+    private Stream<StudentGpa> ranked(Cohort cohort) {
+        Map<String, EnrollmentStore.Totals> totals = enrollmentService.gradedTotals(cohort.semester());
+        return totals.entrySet().parallelStream()
+                .filter(t -> t.getValue().gradedCredits > 0)
+                .map(t -> {
+                    Student s = studentService.findById(t.getKey()).orElse(null);
+                    if (cohort.program() != null && (s == null || !cohort.program().equalsIgnoreCase(s.getProgram()))) return null;
+                    EnrollmentStore.Totals v = t.getValue();
+                    return new StudentGpa(t.getKey(), s == null ? "" : s.getName(), s == null ? "" : s.getProgram(),
+                            v.qualityPoints / v.gradedCredits, v.gradedCredits);
+                })
+                .filter(Objects::nonNull);
+    }
+
+    private static int bucket(double gpa) { return (int) Math.max(0, Math.min(GPA_BUCKETS - 1, Math.floor(gpa * 100 + 1e-9))); }
+}
@@ -0,0 +1,27 @@
+package edu.ccrm.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.stream.Stream;
+
+// Where StudentService and CourseService keep their entities: a heap map by default, or pages on disk
+// behind a bounded cache for catalogs larger than the heap. Values are keyed by their own id.
+interface Repository<T> extends Closeable {
+    T get(String id);
+
+    // false when the id is already taken
+    boolean insert(T value);
+
+    // stores the current state of a value, inserting it if needed
+    void update(T value);
+
+    T remove(String id);
+
+    // lazy and weakly consistent, like a ConcurrentHashMap view: nothing is copied up front
+    Stream<T> stream();
+
+    long size();
+
+    @Override
+    default void close() throws IOException {}
+}
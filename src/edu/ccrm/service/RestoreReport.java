@@ -0,0 +1,47 @@
+package edu.ccrm.service;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Per-file outcome of BackupService.restore, in manifest order.
+public class RestoreReport {
+    public enum Status {
+        OK,
+        MISSING,            // neither the backup folder nor the blob store has the file
+        SIZE_MISMATCH,      // restored copy is not as long as the manifest says
+        CHECKSUM_MISMATCH,  // restored copy does not hash to the manifest's sha256
+        FAILED              // the copy itself failed
+    }
+
+    public record FileResult(String path, long size, Status status, String detail) {
+        @Override public String toString() { return path + ": " + status + (detail == null ? "" : " (" + detail + ")"); }
+    }
+
+    private final Path backup;
+    private final Path destination;
+    private final List<FileResult> files;
+
+    RestoreReport(Path backup, Path destination, List<FileResult> files) {
+        this.backup = backup;
+        this.destination = destination;
+        this.files = Collections.unmodifiableList(files);
+    }
+
+    public Path getBackup() { return backup; }
+    public Path getDestination() { return destination; }
+    public List<FileResult> getFiles() { return files; }
+    public List<FileResult> getFailures() { return files.stream().filter(f -> f.status() != Status.OK).collect(Collectors.toList()); }
+    public boolean isOk() { return files.stream().allMatch(f -> f.status() == Status.OK); }
+    public long getBytes() { return files.stream().mapToLong(FileResult::size).sum(); }
+
+    public void printFailures(PrintStream out) { getFailures().forEach(f -> out.println("  " + f)); }
+
+    @Override
+    public String toString() {
+        return String.format("Restore[%s -> %s: files=%d, bytes=%d, failed=%d]", backup.getFileName(), destination,
+                files.size(), getBytes(), getFailures().size());
+    }
+}
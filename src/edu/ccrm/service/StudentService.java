@@ -1,17 +1,107 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Student;
+import edu.ccrm.events.DomainEvent;
+import edu.ccrm.events.EventRing;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StudentService implements Closeable {
+    private final Repository<Student> students;
+    // ids changed since the last drain, for CatalogFlusher; marked after the change so a drain never misses it
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private volatile EventRing events;
+
+    public StudentService() { this(new MapRepository<>(Student::getId)); }
+    StudentService(Repository<Student> students) { this.students = students; }
+
+    // changes are published after they are applied; null = no events
+    public void setEvents(EventRing events) { this.events = events; }
+
+    // students kept in a page file, with only the cacheEntries most recently used ones on the heap
+    public static StudentService paged(Path file, int cacheEntries) throws IOException {
+        return new StudentService(new PagedRepository<>(file, CODEC, "students", cacheEntries));
+    }
 
-public class StudentService {
-    private final Map<String, Student> students = new HashMap<>();
     public void addStudent(Student s) {
-        if (students.containsKey(s.getId())) throw new IllegalArgumentException("Student with ID exists: " + s.getId());
-        students.put(s.getId(), s);
+        if (!students.insert(s)) throw new IllegalArgumentException("Student with ID exists: " + s.getId());
+        dirty.add(s.getId());
+        publish(DomainEvent.Type.STUDENT_ADDED, s.getId());
     }
     public Optional<Student> findById(String id) { return Optional.ofNullable(students.get(id)); }
-    public List<Student> getAllStudents() { return new ArrayList<>(students.values()); }
-    public void deactivateStudent(String id) { Student s = students.get(id); if (s != null) s.deactivate(); }
-    public void removeStudent(String id) { students.remove(id); }
-    public void displayAllStudents() { students.values().forEach(System.out::println); }
+    // copies every student; bulk readers should use stream()
+    public List<Student> getAllStudents() { return stream().collect(Collectors.toList()); }
+    // lazy, non-copying view for bulk readers such as exports
+    public Stream<Student> stream() { return students.stream(); }
+    public long count() { return students.size(); }
+    // writes back changes made through a Student's setters; a paged store would otherwise lose them on eviction
+    public void updateStudent(Student s) {
+        if (students.get(s.getId()) == null) throw new IllegalArgumentException("Student not found: " + s.getId());
+        students.update(s);
+        dirty.add(s.getId());
+        publish(DomainEvent.Type.STUDENT_UPDATED, s.getId());
+    }
+    public void deactivateStudent(String id) {
+        Student s = students.get(id);
+        if (s == null) return;
+        s.deactivate();
+        students.update(s);
+        dirty.add(id);
+        publish(DomainEvent.Type.STUDENT_DEACTIVATED, id);
+    }
+    public void removeStudent(String id) {
+        if (students.remove(id) == null) return;
+        dirty.add(id);
+        publish(DomainEvent.Type.STUDENT_REMOVED, id);
+    }
+    public void displayAllStudents() { stream().forEach(System.out::println); }
+    @Override public void close() throws IOException { students.close(); }
+
+    // hands the changed ids to the caller and forgets them
+    Set<String> drainDirty() { return drain(dirty); }
+    void clearDirty() { dirty.clear(); }
+    void markDirty(Collection<String> ids) { dirty.addAll(ids); }
+
+    private void publish(DomainEvent.Type type, String id) {
+        EventRing e = events;
+        if (e != null) e.publish(type, id);
+    }
+
+    static Set<String> drain(Set<String> dirty) {
+        Set<String> out = new HashSet<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) { out.add(it.next()); it.remove(); }
+        return out;
+    }
+
+    private static final PagedRepository.Codec<Student> CODEC = new PagedRepository.Codec<>() {
+        @Override public String key(Student s) { return s.getId(); }
+
+        @Override
+        public void write(Student s, DataOutput out) throws IOException {
+            PagedRepository.writeString(out, s.getName());
+            PagedRepository.writeString(out, s.getEmail());
+            out.writeLong(s.getDateOfBirth() == null ? Long.MIN_VALUE : s.getDateOfBirth().toEpochDay());
+            PagedRepository.writeString(out, s.getRegNo());
+            PagedRepository.writeString(out, s.getProgram());
+            out.writeBoolean(s.isActive());
+        }
+
+        @Override
+        public Student read(String id, DataInput in) throws IOException {
+            String name = PagedRepository.readString(in), email = PagedRepository.readString(in);
+            long dob = in.readLong();
+            Student s = new Student(id, name, email, dob == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(dob),
+                    PagedRepository.readString(in), PagedRepository.readString(in));
+            if (!in.readBoolean()) s.deactivate();
+            return s;
+        }
+    };
 }
\ No newline at end of file
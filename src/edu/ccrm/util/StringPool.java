@@ -0,0 +1,10 @@
+package edu.ccrm.util;
+
+// Canonical instances for heavily repeated domain strings (ids referenced by enrollments, programs,
+// departments, instructors). Backed by the JVM string table, which is concurrent and lets unused
+// entries be collected, so nothing here outlives the objects that refer to it.
+public final class StringPool {
+    private StringPool() {}
+
+    public static String canonical(String s) { return s == null ? null : s.intern(); }
+}